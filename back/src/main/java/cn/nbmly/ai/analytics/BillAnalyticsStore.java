@@ -0,0 +1,245 @@
+package cn.nbmly.ai.analytics;
+
+import cn.nbmly.ai.entity.Bill;
+import cn.nbmly.ai.util.AmountCents;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 活跃用户账单的内存列存。按用户首次查询时从账单表加载，总占用受内存预算约束，超出时淘汰最近最少使用的用户；
+ * 单笔写入在事务提交后同步到列存，批量写入则整体失效
+ */
+@Slf4j
+@Component
+public class BillAnalyticsStore {
+
+    private static final int LOAD_FETCH_SIZE = 1000;
+    private static final String LOAD_SQL = "SELECT id, bill_time, amount_cents, category_id, type FROM bill "
+            + "WHERE user_id = ? AND deleted_at IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean offHeap;
+    private final Cache<Long, UserBills> users;
+
+    public BillAnalyticsStore(JdbcTemplate jdbcTemplate,
+            @Value("${bookkeeping.analytics.memory-budget:64MB}") DataSize memoryBudget,
+            @Value("${bookkeeping.analytics.off-heap:false}") boolean offHeap,
+            @Value("${bookkeeping.analytics.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.offHeap = offHeap;
+        this.users = Caffeine.newBuilder()
+                .maximumWeight(memoryBudget.toBytes())
+                .weigher((Long userId, UserBills bills) -> (int) Math.min(Integer.MAX_VALUE, bills.memoryBytes()))
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    public BillTotals sum(Long userId, BillFilter filter) {
+        UserBills bills = users.get(userId, this::load);
+        long[] totals = bills.sum(filter);
+        return new BillTotals(AmountCents.toAmount(totals[0]), AmountCents.toAmount(totals[1]), totals[2]);
+    }
+
+    /**
+     * 满足条件的账单 id，顺序不确定
+     */
+    public List<Long> findIds(Long userId, BillFilter filter) {
+        return users.get(userId, this::load).findIds(filter);
+    }
+
+    public void onBillAdded(Bill bill) {
+        UserBills loadedBeforeWrite = users.getIfPresent(bill.getUserId());
+        afterCommit(() -> apply(bill.getUserId(), loadedBeforeWrite, bills -> bills.add(bill)));
+    }
+
+    public void onBillRemoved(Bill bill) {
+        UserBills loadedBeforeWrite = users.getIfPresent(bill.getUserId());
+        afterCommit(() -> apply(bill.getUserId(), loadedBeforeWrite, bills -> bills.remove(bill.getId())));
+    }
+
+    public void invalidate(Long userId) {
+        afterCommit(() -> users.invalidate(userId));
+    }
+
+    /**
+     * 与前缀和索引相同的规则：只更新写入前已加载的同一份列存，否则失效重建
+     */
+    private void apply(Long userId, UserBills loadedBeforeWrite, Mutation mutation) {
+        UserBills bills = users.getIfPresent(userId);
+        if (bills == null || bills != loadedBeforeWrite) {
+            users.invalidate(userId);
+            return;
+        }
+        long before = bills.memoryBytes();
+        if (!mutation.apply(bills)) {
+            users.invalidate(userId);
+        } else if (bills.memoryBytes() != before) {
+            users.put(userId, bills); // 扩容后重新计入内存预算
+        }
+    }
+
+    private UserBills load(Long userId) {
+        long start = System.currentTimeMillis();
+        UserBills bills = new UserBills(offHeap ? new DirectBillColumns(16) : new HeapBillColumns(16));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(LOAD_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(LOAD_FETCH_SIZE);
+            ps.setLong(1, userId);
+            return ps;
+        }, (RowCallbackHandler) rs -> bills.add(rs.getLong("id"), rs.getLong("amount_cents"),
+                rs.getObject("bill_time", LocalDateTime.class), rs.getLong("category_id"), rs.getString("type")));
+        log.debug("用户{}账单列存已加载：{}条，{}字节，耗时{}ms", userId, bills.columns.size(), bills.memoryBytes(),
+                System.currentTimeMillis() - start);
+        return bills;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private interface Mutation {
+        boolean apply(UserBills bills);
+    }
+
+    /**
+     * 单个用户的列存与分类字典（分类 id → 列中的下标）
+     */
+    private static final class UserBills {
+
+        private BillColumns columns;
+        private final List<Long> categoryIds = new ArrayList<>();
+        private final Map<Long, Integer> categoryIndexes = new HashMap<>();
+
+        UserBills(BillColumns columns) {
+            this.columns = columns;
+        }
+
+        synchronized long memoryBytes() {
+            return columns.memoryBytes();
+        }
+
+        synchronized boolean add(Bill bill) {
+            add(bill.getId(), AmountCents.of(bill.getAmount()), bill.getBillTime(), bill.getCategoryId(), bill.getType());
+            return true;
+        }
+
+        synchronized void add(long id, long cents, LocalDateTime billTime, Long categoryId, String type) {
+            Integer categoryIndex = categoryIndexes.get(categoryId);
+            if (categoryIndex == null) {
+                categoryIndex = categoryIds.size();
+                categoryIds.add(categoryId);
+                categoryIndexes.put(categoryId, categoryIndex);
+            }
+            columns = columns.append(id, cents,
+                    (int) billTime.toLocalDate().toEpochDay(), categoryIndex, "income".equals(type));
+        }
+
+        synchronized boolean remove(Long id) {
+            return columns.remove(id);
+        }
+
+        /**
+         * 返回 {收入分, 支出分, 笔数}
+         */
+        synchronized long[] sum(BillFilter filter) {
+            long income = 0;
+            long expense = 0;
+            long count = 0;
+            int category = categoryOf(filter);
+            if (category == MISSING_CATEGORY) {
+                return new long[3];
+            }
+            int typeMode = typeModeOf(filter);
+            int from = filter.getStartDay() == null ? Integer.MIN_VALUE : (int) filter.getStartDay().toEpochDay();
+            int to = filter.getEndDay() == null ? Integer.MAX_VALUE : (int) filter.getEndDay().toEpochDay();
+            BillColumns c = columns;
+            for (int row = 0, size = c.size(); row < size; row++) {
+                int day = c.epochDay(row);
+                if (day < from || day >= to || (category >= 0 && c.categoryIndex(row) != category)) {
+                    continue;
+                }
+                boolean isIncome = c.income(row);
+                if ((typeMode == 1 && !isIncome) || (typeMode == 2 && isIncome)) {
+                    continue;
+                }
+                if (isIncome) {
+                    income = AmountCents.add(income, c.cents(row));
+                } else {
+                    expense = AmountCents.add(expense, c.cents(row));
+                }
+                count++;
+            }
+            return new long[] { income, expense, count };
+        }
+
+        synchronized List<Long> findIds(BillFilter filter) {
+            List<Long> ids = new ArrayList<>();
+            int category = categoryOf(filter);
+            if (category == MISSING_CATEGORY) {
+                return ids;
+            }
+            int typeMode = typeModeOf(filter);
+            int from = filter.getStartDay() == null ? Integer.MIN_VALUE : (int) filter.getStartDay().toEpochDay();
+            int to = filter.getEndDay() == null ? Integer.MAX_VALUE : (int) filter.getEndDay().toEpochDay();
+            BillColumns c = columns;
+            for (int row = 0, size = c.size(); row < size; row++) {
+                int day = c.epochDay(row);
+                if (day < from || day >= to || (category >= 0 && c.categoryIndex(row) != category)) {
+                    continue;
+                }
+                boolean isIncome = c.income(row);
+                if ((typeMode == 1 && !isIncome) || (typeMode == 2 && isIncome)) {
+                    continue;
+                }
+                ids.add(c.id(row));
+            }
+            return ids;
+        }
+
+        private static final int ANY_CATEGORY = -1;
+        private static final int MISSING_CATEGORY = -2;
+
+        private int categoryOf(BillFilter filter) {
+            if (filter.getCategoryId() == null) {
+                return ANY_CATEGORY;
+            }
+            Integer index = categoryIndexes.get(filter.getCategoryId());
+            return index != null ? index : MISSING_CATEGORY;
+        }
+
+        // 0 不限，1 收入，2 支出
+        private int typeModeOf(BillFilter filter) {
+            if (filter.getType() == null) {
+                return 0;
+            }
+            return "income".equals(filter.getType()) ? 1 : 2;
+        }
+    }
+}
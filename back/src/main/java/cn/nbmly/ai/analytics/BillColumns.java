@@ -0,0 +1,84 @@
+package cn.nbmly.ai.analytics;
+
+/**
+ * 单个用户账单的列式存储：id、金额（分）、纪元日、分类下标各占一列，类型以分类下标的最高位表示。
+ * 不包含字符串与对象，筛选和汇总在基本类型上循环完成
+ */
+public abstract class BillColumns {
+
+    static final int INCOME_FLAG = 1 << 31;
+    static final int BYTES_PER_ROW = Long.BYTES * 2 + Integer.BYTES * 2;
+
+    protected int size;
+
+    public int size() {
+        return size;
+    }
+
+    public abstract int capacity();
+
+    public long memoryBytes() {
+        return (long) capacity() * BYTES_PER_ROW;
+    }
+
+    public abstract long id(int row);
+
+    public abstract long cents(int row);
+
+    public abstract int epochDay(int row);
+
+    /**
+     * 分类下标与类型位
+     */
+    protected abstract int categoryAndType(int row);
+
+    protected abstract void set(int row, long id, long cents, int epochDay, int categoryAndType);
+
+    /**
+     * 按新容量复制出同类型的存储
+     */
+    protected abstract BillColumns copyWithCapacity(int capacity);
+
+    public int categoryIndex(int row) {
+        return categoryAndType(row) & ~INCOME_FLAG;
+    }
+
+    public boolean income(int row) {
+        return (categoryAndType(row) & INCOME_FLAG) != 0;
+    }
+
+    /**
+     * 追加一行，容量不足时返回扩容后的新存储，调用方需改用返回值
+     */
+    public BillColumns append(long id, long cents, int epochDay, int categoryIndex, boolean income) {
+        BillColumns target = this;
+        if (size == capacity()) {
+            target = copyWithCapacity(Math.max(16, capacity() * 2));
+        }
+        target.set(target.size, id, cents, epochDay, income ? categoryIndex | INCOME_FLAG : categoryIndex);
+        target.size++;
+        return target;
+    }
+
+    /**
+     * 按 id 删除一行（与末行交换），找不到时返回 false
+     */
+    public boolean remove(long id) {
+        for (int row = 0; row < size; row++) {
+            if (id(row) == id) {
+                int last = size - 1;
+                set(row, id(last), cents(last), epochDay(last), categoryAndType(last));
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected void copyInto(BillColumns target) {
+        for (int row = 0; row < size; row++) {
+            target.set(row, id(row), cents(row), epochDay(row), categoryAndType(row));
+        }
+        target.size = size;
+    }
+}
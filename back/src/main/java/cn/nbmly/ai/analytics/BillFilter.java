@@ -0,0 +1,16 @@
+package cn.nbmly.ai.analytics;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 列存筛选条件，字段为空表示不限
+ */
+@Data
+public class BillFilter {
+    private String type; // "expense" or "income"
+    private Long categoryId;
+    private LocalDate startDay; // 含
+    private LocalDate endDay; // 不含
+}
@@ -0,0 +1,14 @@
+package cn.nbmly.ai.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class BillTotals {
+    private BigDecimal income;
+    private BigDecimal expense;
+    private long count;
+}
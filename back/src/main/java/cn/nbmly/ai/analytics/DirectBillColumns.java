@@ -0,0 +1,64 @@
+package cn.nbmly.ai.analytics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 堆外实现：一块直接内存内按列分区（id | 金额 | 纪元日 | 分类），不计入 Java 堆，也不受 GC 扫描
+ */
+public class DirectBillColumns extends BillColumns {
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final int centsOffset;
+    private final int dayOffset;
+    private final int categoryOffset;
+
+    public DirectBillColumns(int capacity) {
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocateDirect(capacity * BYTES_PER_ROW).order(ByteOrder.nativeOrder());
+        this.centsOffset = capacity * Long.BYTES;
+        this.dayOffset = centsOffset + capacity * Long.BYTES;
+        this.categoryOffset = dayOffset + capacity * Integer.BYTES;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public long id(int row) {
+        return buffer.getLong(row * Long.BYTES);
+    }
+
+    @Override
+    public long cents(int row) {
+        return buffer.getLong(centsOffset + row * Long.BYTES);
+    }
+
+    @Override
+    public int epochDay(int row) {
+        return buffer.getInt(dayOffset + row * Integer.BYTES);
+    }
+
+    @Override
+    protected int categoryAndType(int row) {
+        return buffer.getInt(categoryOffset + row * Integer.BYTES);
+    }
+
+    @Override
+    protected void set(int row, long id, long amountCents, int epochDay, int categoryAndType) {
+        buffer.putLong(row * Long.BYTES, id);
+        buffer.putLong(centsOffset + row * Long.BYTES, amountCents);
+        buffer.putInt(dayOffset + row * Integer.BYTES, epochDay);
+        buffer.putInt(categoryOffset + row * Integer.BYTES, categoryAndType);
+    }
+
+    @Override
+    protected BillColumns copyWithCapacity(int capacity) {
+        DirectBillColumns copy = new DirectBillColumns(capacity);
+        copyInto(copy);
+        return copy;
+    }
+}
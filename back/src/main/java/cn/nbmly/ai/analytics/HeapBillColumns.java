@@ -0,0 +1,59 @@
+package cn.nbmly.ai.analytics;
+
+/**
+ * 堆内基本类型数组实现
+ */
+public class HeapBillColumns extends BillColumns {
+
+    private final long[] ids;
+    private final long[] cents;
+    private final int[] epochDays;
+    private final int[] categories;
+
+    public HeapBillColumns(int capacity) {
+        this.ids = new long[capacity];
+        this.cents = new long[capacity];
+        this.epochDays = new int[capacity];
+        this.categories = new int[capacity];
+    }
+
+    @Override
+    public int capacity() {
+        return ids.length;
+    }
+
+    @Override
+    public long id(int row) {
+        return ids[row];
+    }
+
+    @Override
+    public long cents(int row) {
+        return cents[row];
+    }
+
+    @Override
+    public int epochDay(int row) {
+        return epochDays[row];
+    }
+
+    @Override
+    protected int categoryAndType(int row) {
+        return categories[row];
+    }
+
+    @Override
+    protected void set(int row, long id, long amountCents, int epochDay, int categoryAndType) {
+        ids[row] = id;
+        cents[row] = amountCents;
+        epochDays[row] = epochDay;
+        categories[row] = categoryAndType;
+    }
+
+    @Override
+    protected BillColumns copyWithCapacity(int capacity) {
+        HeapBillColumns copy = new HeapBillColumns(capacity);
+        copyInto(copy);
+        return copy;
+    }
+}
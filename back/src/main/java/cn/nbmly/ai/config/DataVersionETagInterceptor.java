@@ -0,0 +1,54 @@
+package cn.nbmly.ai.config;
+
+import cn.nbmly.ai.service.StatisticsCacheService;
+import cn.nbmly.ai.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * 以用户数据版本号生成强 ETag。If-None-Match 命中时在进入控制器前直接返回 304，
+ * 不执行查询与序列化；未命中时带上 ETag 继续处理
+ */
+@Component
+@RequiredArgsConstructor
+public class DataVersionETagInterceptor implements HandlerInterceptor {
+
+    private final StatisticsCacheService statisticsCacheService;
+    private final UserService userService;
+
+    // 近一周/月/年等滚动窗口随时间变化，统计接口的标签按统计缓存的过期时间分段
+    @Value("${bookkeeping.statistics-cache.ttl:5m}")
+    private Duration statisticsTtl;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return true;
+        }
+        Long userId = userService.findByUsername(authentication.getName()).getId();
+        String tag = statisticsCacheService.getVersionTag(userId);
+        if (request.getRequestURI().startsWith("/api/statistics")) {
+            tag += "-" + System.currentTimeMillis() / statisticsTtl.toMillis();
+        }
+        String etag = "\"" + tag + "\"";
+        // 浏览器每次都带 If-None-Match 回源校验，响应只允许私有缓存
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
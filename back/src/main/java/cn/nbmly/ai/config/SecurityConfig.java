@@ -31,6 +31,9 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // 跨用户的运维指标，须排在下面的放行规则之前
+                        .requestMatchers("/api/statistics/cache/stats").hasRole("ADMIN")
+                        .requestMatchers("/api/ai/chat/routing/stats").hasRole("ADMIN")
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/user/login").permitAll()
                         .requestMatchers("/api/user/register").permitAll()
@@ -0,0 +1,21 @@
+package cn.nbmly.ai.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final DataVersionETagInterceptor dataVersionETagInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 缓存指标不随用户数据变化；同步结果还取决于提交延迟窗口，版本号不变时也可能有新数据，二者都不参与条件请求
+        registry.addInterceptor(dataVersionETagInterceptor)
+                .addPathPatterns("/api/bills/**", "/api/categories/**", "/api/statistics/**")
+                .excludePathPatterns("/api/statistics/cache/**", "/api/bills/sync");
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @CrossOrigin
@@ -105,4 +106,12 @@ public class AiChatController {
         chatSessionService.clearSession(userId);
         return ResponseEntity.ok("对话历史已清除");
     }
+
+    /**
+     * 本地意图路由的全局命中统计，仅管理员可访问
+     */
+    @GetMapping("/routing/stats")
+    public ResponseEntity<Map<String, Object>> getRoutingStats() {
+        return ResponseEntity.ok(aiChatService.getRoutingStats());
+    }
 }
\ No newline at end of file
@@ -1,18 +1,27 @@
 package cn.nbmly.ai.controller;
 
 import cn.nbmly.ai.dto.BillDTO;
+import cn.nbmly.ai.dto.BillDeleteResultDTO;
+import cn.nbmly.ai.dto.BillImportResultDTO;
+import cn.nbmly.ai.dto.BillPageDTO;
 import cn.nbmly.ai.dto.BillRequest;
+import cn.nbmly.ai.dto.BillSyncDTO;
 import cn.nbmly.ai.entity.User;
 import cn.nbmly.ai.service.BillService;
 import cn.nbmly.ai.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @CrossOrigin(origins = "http://localhost:5173", allowCredentials = "true")
@@ -40,13 +49,66 @@ public class BillController {
         return new ResponseEntity<>(createdBill, HttpStatus.CREATED);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BillImportResultDTO> importBills(@RequestBody List<BillRequest> billRequests,
+            Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        log.info("Importing {} bills for user: {}", billRequests.size(), currentUser.getUsername());
+        BillImportResultDTO result = billService.importBills(billRequests, currentUser.getId());
+        return ResponseEntity.ok(result);
+    }
+
     @GetMapping
-    public ResponseEntity<List<BillDTO>> getUserBills(Authentication authentication) {
+    public ResponseEntity<List<BillDTO>> getUserBills(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            Authentication authentication) {
         User currentUser = getCurrentUser(authentication);
-        List<BillDTO> bills = billService.getBillsByUser(currentUser.getId());
+        if (startTime == null && endTime == null) {
+            return ResponseEntity.ok(billService.getBillsByUser(currentUser.getId()));
+        }
+        if (startTime == null || endTime == null) {
+            throw new RuntimeException("开始时间和结束时间必须同时指定");
+        }
+        List<BillDTO> bills = billService.getBillsByUserAndTimeRange(currentUser.getId(), startTime, endTime);
         return ResponseEntity.ok(bills);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<BillPageDTO> getUserBillPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size, Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        BillPageDTO page = billService.getBillPage(currentUser.getId(), cursor, size);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * 增量同步：返回游标之后变更的账单和删除的账单ID，首次同步不传 cursor
+     */
+    @GetMapping("/sync")
+    public ResponseEntity<BillSyncDTO> syncBills(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500") int size, Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        return ResponseEntity.ok(billService.syncBills(currentUser.getId(), cursor, size));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBills(@RequestParam(defaultValue = "csv") String format,
+            Authentication authentication) {
+        boolean json = "json".equalsIgnoreCase(format);
+        if (!json && !"csv".equalsIgnoreCase(format)) {
+            throw new RuntimeException("不支持的导出格式：" + format);
+        }
+        User currentUser = getCurrentUser(authentication);
+        Long userId = currentUser.getId();
+        StreamingResponseBody body = outputStream -> billService.exportBills(userId, format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(json ? MediaType.parseMediaType("application/x-ndjson;charset=UTF-8")
+                        : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bills." + (json ? "ndjson" : "csv"))
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<BillDTO> getBillById(@PathVariable Long id, Authentication authentication) {
         User currentUser = getCurrentUser(authentication);
@@ -68,4 +130,12 @@ public class BillController {
         billService.deleteBill(id, currentUser.getId());
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    @DeleteMapping(params = "categoryId")
+    public ResponseEntity<BillDeleteResultDTO> deleteBillsByCategory(@RequestParam Long categoryId,
+            @RequestParam(defaultValue = "false") boolean dryRun, Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        int count = billService.deleteBillsByCategory(categoryId, currentUser.getId(), dryRun);
+        return ResponseEntity.ok(new BillDeleteResultDTO(count, dryRun));
+    }
+}
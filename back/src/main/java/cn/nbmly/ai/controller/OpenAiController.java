@@ -98,6 +98,6 @@ public class OpenAiController {
         // 账单管理函数 - 获取账单统计
         public Object getBillStatistics(Long userId) {
                 BillTools.setCurrentUserId(userId);
-                return billTools.getBillStatistics();
+                return billTools.getBillStatistics(null);
         }
 }
@@ -1,22 +1,41 @@
 package cn.nbmly.ai.controller;
 
 import cn.nbmly.ai.dto.StatisticsDTO;
+import cn.nbmly.ai.dto.StatisticsGranularity;
+import cn.nbmly.ai.dto.StatisticsSection;
 import cn.nbmly.ai.entity.User;
+import cn.nbmly.ai.service.BillRangeSumService;
+import cn.nbmly.ai.service.BillRollupService;
+import cn.nbmly.ai.service.StatisticsCacheService;
 import cn.nbmly.ai.service.StatisticsService;
 import cn.nbmly.ai.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 @RestController
 @RequestMapping("/api/statistics")
 @RequiredArgsConstructor
 @Slf4j
 public class StatisticsController {
 
+    private static final Set<StatisticsSection> DEFAULT_ALL_SECTIONS = EnumSet.of(StatisticsSection.TOTAL,
+            StatisticsSection.TIME, StatisticsSection.TOP_CATEGORIES);
+
     private final StatisticsService statisticsService;
+    private final BillRollupService billRollupService;
+    private final BillRangeSumService billRangeSumService;
+    private final StatisticsCacheService statisticsCacheService;
     private final UserService userService;
 
     private User getCurrentUser(Authentication authentication) {
@@ -31,10 +50,16 @@ public class StatisticsController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * 不传时间时返回近一周、一月、一年的收支；同时传入 startTime、endTime 时返回 [startTime, endTime) 的收支合计
+     */
     @GetMapping("/time-based")
-    public ResponseEntity<StatisticsDTO> getTimeBasedStatistics(Authentication authentication) {
+    public ResponseEntity<StatisticsDTO> getTimeBasedStatistics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            Authentication authentication) {
         User currentUser = getCurrentUser(authentication);
-        StatisticsDTO stats = statisticsService.getTimeBasedStatistics(currentUser.getId(), null, null);
+        StatisticsDTO stats = statisticsService.getTimeBasedStatistics(currentUser.getId(), startTime, endTime);
         return ResponseEntity.ok(stats);
     }
 
@@ -52,33 +77,81 @@ public class StatisticsController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * 收入、支出各取金额最高的 k 个类别，并返回其余类别合计，可选限定 [startTime, endTime)
+     */
     @GetMapping("/top-categories")
-    public ResponseEntity<StatisticsDTO> getTopCategoryStatistics(Authentication authentication) {
+    public ResponseEntity<StatisticsDTO> getTopCategoryStatistics(
+            @RequestParam(defaultValue = "3") int k,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            Authentication authentication) {
         User currentUser = getCurrentUser(authentication);
-        StatisticsDTO stats = statisticsService.getTopCategoryStatistics(currentUser.getId());
+        StatisticsDTO stats = statisticsService.getTopCategoryStatistics(currentUser.getId(), k, startTime, endTime);
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * 合并统计，sections 为逗号分隔的板块名（total,time,category,top-categories,monthly,daily），
+     * 不传时返回总收支、时间段和Top分类
+     */
     @GetMapping("/all")
-    public ResponseEntity<StatisticsDTO> getAllStatistics(Authentication authentication) {
+    public ResponseEntity<StatisticsDTO> getAllStatistics(
+            @RequestParam(required = false) String sections,
+            Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        Set<StatisticsSection> requested = StatisticsSection.parse(sections, DEFAULT_ALL_SECTIONS);
+        StatisticsDTO stats = statisticsService.getStatistics(currentUser.getId(), requested);
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 金额分布：中位数、p90、p99 及直方图，默认统计支出。
+     * 分位数与直方图均由对数分桶估算，与档位边界相差 1% 以内的金额可能计入相邻档位，count 为精确笔数
+     */
+    @GetMapping("/distribution")
+    public ResponseEntity<StatisticsDTO> getDistributionStatistics(
+            @RequestParam(defaultValue = "expense") String type,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            Authentication authentication) {
         User currentUser = getCurrentUser(authentication);
+        StatisticsDTO stats = statisticsService.getDistributionStatistics(currentUser.getId(), type, categoryId,
+                startTime, endTime);
+        return ResponseEntity.ok(stats);
+    }
 
-        // 获取所有统计数据
-        StatisticsDTO totalStats = statisticsService.getTotalStatistics(currentUser.getId());
-        StatisticsDTO timeStats = statisticsService.getTimeBasedStatistics(currentUser.getId(), null, null);
-        StatisticsDTO topStats = statisticsService.getTopCategoryStatistics(currentUser.getId());
-
-        // 合并统计数据
-        totalStats.setWeekIncome(timeStats.getWeekIncome());
-        totalStats.setWeekExpense(timeStats.getWeekExpense());
-        totalStats.setMonthIncome(timeStats.getMonthIncome());
-        totalStats.setMonthExpense(timeStats.getMonthExpense());
-        totalStats.setYearIncome(timeStats.getYearIncome());
-        totalStats.setYearExpense(timeStats.getYearExpense());
-        totalStats.setTopExpenseCategories(topStats.getTopExpenseCategories());
-        totalStats.setTopIncomeCategories(topStats.getTopIncomeCategories());
-
-        return ResponseEntity.ok(totalStats);
+    /**
+     * 日期滑块用的区间合计 [startDate, endDate)，由内存前缀和索引计算，不访问数据库
+     */
+    @GetMapping("/range-sum")
+    public ResponseEntity<StatisticsDTO> getRangeSum(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        BigDecimal[] totals = billRangeSumService.sumRange(currentUser.getId(), startDate, endDate);
+        StatisticsDTO stats = new StatisticsDTO();
+        stats.setTotalIncome(totals[0]);
+        stats.setTotalExpense(totals[1]);
+        stats.setNetIncome(totals[0].subtract(totals[1]));
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * 按粒度分桶：hour、weekday、day、week、month、quarter、year，可选 [startTime, endTime)
+     */
+    @GetMapping("/buckets")
+    public ResponseEntity<StatisticsDTO> getBucketStatistics(
+            @RequestParam String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endTime,
+            Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        StatisticsDTO stats = statisticsService.getBucketStatistics(currentUser.getId(),
+                StatisticsGranularity.parse(granularity), startTime, endTime);
+        return ResponseEntity.ok(stats);
     }
 
     @GetMapping("/daily")
@@ -87,4 +160,21 @@ public class StatisticsController {
         StatisticsDTO stats = statisticsService.getDailyStatistics(currentUser.getId());
         return ResponseEntity.ok(stats);
     }
-}
\ No newline at end of file
+
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Void> rebuildRollup(Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        billRollupService.rebuildUser(currentUser.getId());
+        billRangeSumService.invalidate(currentUser.getId());
+        statisticsCacheService.bumpVersion(currentUser.getId());
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * 统计缓存的全局命中情况，仅管理员可访问
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(statisticsCacheService.getStats());
+    }
+}
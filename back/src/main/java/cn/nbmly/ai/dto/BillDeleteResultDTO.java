@@ -0,0 +1,11 @@
+package cn.nbmly.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class BillDeleteResultDTO {
+    private int count; // 删除（或试运行时将被删除）的账单数量
+    private boolean dryRun;
+}
@@ -0,0 +1,24 @@
+package cn.nbmly.ai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BillImportResultDTO {
+    private int total; // 提交的行数
+    private int imported; // 成功写入的行数
+    private int failed; // 校验失败的行数
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private int row; // 从0开始的行号，对应请求数组下标
+        private String message;
+    }
+}
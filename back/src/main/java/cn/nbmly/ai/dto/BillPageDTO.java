@@ -0,0 +1,13 @@
+package cn.nbmly.ai.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BillPageDTO {
+    private List<BillDTO> items;
+    private String nextCursor; // 下一页游标，为空表示没有更多数据
+    private boolean hasMore;
+    private int size; // 本次请求实际使用的分页大小
+}
@@ -0,0 +1,15 @@
+package cn.nbmly.ai.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BillSyncDTO {
+    private List<BillDTO> items; // 新增或修改过的账单
+    private List<Long> deletedIds; // 已删除的账单ID
+    private String nextCursor; // 下次同步时带上；hasMore 为 true 时应立即继续拉取
+    private boolean hasMore;
+    private int size; // 本次请求实际使用的分页大小
+    private boolean reset; // 为 true 时游标已过期，客户端应清空本地账单后按本次结果重建
+}
@@ -40,6 +40,15 @@ public class StatisticsDTO {
     // Top类别统计
     private List<CategoryStat> topExpenseCategories;
     private List<CategoryStat> topIncomeCategories;
+    private BigDecimal otherExpenseAmount; // Top类别之外其余类别的合计
+    private BigDecimal otherIncomeAmount;
+
+    // 分桶统计
+    private String granularity;
+    private List<BucketStat> bucketStats;
+
+    // 金额分布（分位数、直方图）
+    private DistributionStat distribution;
 
     @Data
     public static class CategoryStat {
@@ -63,4 +72,30 @@ public class StatisticsDTO {
         private BigDecimal income;
         private BigDecimal expense;
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class BucketStat {
+        private String key; // 桶标签，格式取决于粒度
+        private BigDecimal income;
+        private BigDecimal expense;
+        private long count;
+    }
+
+    @Data
+    public static class DistributionStat {
+        private String type;
+        private Long categoryId; // 为空表示全部分类
+        private long count;
+        private BigDecimal median;
+        private BigDecimal p90;
+        private BigDecimal p99;
+        private List<HistogramBin> histogram;
+    }
+
+    @Data
+    public static class HistogramBin {
+        private BigDecimal lowerBound; // 含
+        private BigDecimal upperBound; // 不含
+        private long count; // 近似值，靠近边界的金额可能计入相邻档位
+    }
+}
@@ -0,0 +1,95 @@
+package cn.nbmly.ai.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * 分桶统计的时间粒度。桶键由日期字段直接算出整数（纪元日、纪元月等），逐行不做字符串格式化，
+ * 只在输出时把每个桶的键转换为展示用标签
+ */
+public enum StatisticsGranularity {
+    HOUR(24), // 一天中的小时，0-23
+    WEEKDAY(7), // 星期几，0 为周一
+    DAY(0),
+    WEEK(0), // 以周一开始的自然周
+    MONTH(0),
+    QUARTER(0),
+    YEAR(0);
+
+    private final int cycleLength;
+
+    StatisticsGranularity(int cycleLength) {
+        this.cycleLength = cycleLength;
+    }
+
+    /**
+     * 周期型粒度（小时、星期）的桶数固定，键从 0 开始
+     */
+    public boolean isCyclic() {
+        return cycleLength > 0;
+    }
+
+    public int getCycleLength() {
+        return cycleLength;
+    }
+
+    /**
+     * 是否需要精确到时刻的账单时间，日汇总只能提供到天
+     */
+    public boolean needsTimeOfDay() {
+        return this == HOUR;
+    }
+
+    public long keyOf(LocalDateTime time) {
+        return this == HOUR ? time.getHour() : keyOf(time.toLocalDate());
+    }
+
+    public long keyOf(LocalDate day) {
+        long epochDay = day.toEpochDay();
+        switch (this) {
+            case WEEKDAY:
+                return Math.floorMod(epochDay + 3, 7); // 1970-01-01 是周四
+            case DAY:
+                return epochDay;
+            case WEEK:
+                return Math.floorDiv(epochDay + 3, 7);
+            case MONTH:
+                return day.getYear() * 12L + day.getMonthValue() - 1;
+            case QUARTER:
+                return day.getYear() * 4L + (day.getMonthValue() - 1) / 3;
+            case YEAR:
+                return day.getYear();
+            default:
+                throw new IllegalStateException("按小时统计需要账单时间");
+        }
+    }
+
+    public String label(long key) {
+        switch (this) {
+            case HOUR:
+                return String.format("%02d", key);
+            case WEEKDAY:
+                return DayOfWeek.of((int) key + 1).name();
+            case DAY:
+                return LocalDate.ofEpochDay(key).toString();
+            case WEEK:
+                return LocalDate.ofEpochDay(key * 7 - 3).toString(); // 该周周一的日期
+            case MONTH:
+                return String.format("%04d-%02d", Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1);
+            case QUARTER:
+                return Math.floorDiv(key, 4) + "-Q" + (Math.floorMod(key, 4) + 1);
+            default:
+                return String.valueOf(key);
+        }
+    }
+
+    public static StatisticsGranularity parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new RuntimeException("不支持的统计粒度：" + value);
+        }
+    }
+}
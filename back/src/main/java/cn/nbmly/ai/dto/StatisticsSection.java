@@ -0,0 +1,38 @@
+package cn.nbmly.ai.dto;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 合并统计接口可选的统计板块
+ */
+public enum StatisticsSection {
+    TOTAL, // 总收支、最大值、平均值
+    TIME, // 近一周、一月、一年
+    CATEGORY, // 按分类
+    TOP_CATEGORIES, // Top分类
+    MONTHLY, // 按月
+    DAILY; // 按日
+
+    /**
+     * 解析逗号分隔的板块名（大小写、连字符均可），为空时返回默认板块
+     */
+    public static Set<StatisticsSection> parse(String value, Set<StatisticsSection> defaults) {
+        if (value == null || value.isBlank()) {
+            return defaults;
+        }
+        Set<StatisticsSection> sections = EnumSet.noneOf(StatisticsSection.class);
+        for (String name : value.split(",")) {
+            if (name.isBlank()) {
+                continue;
+            }
+            try {
+                sections.add(valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("不支持的统计板块：" + name.trim());
+            }
+        }
+        return sections.isEmpty() ? defaults : sections;
+    }
+}
@@ -1,14 +1,24 @@
 package cn.nbmly.ai.entity;
 
+import cn.nbmly.ai.util.AmountCents;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bill")
+@Table(name = "bill", indexes = {
+        @Index(name = "idx_user_bill_time", columnList = "user_id, bill_time"),
+        @Index(name = "idx_user_update_time", columnList = "user_id, update_time"),
+        @Index(name = "idx_bill_deleted_at", columnList = "deleted_at"),
+        // 账单表上的统计查询按分列求和、按 amount 取最大值，并带有软删除条件，三列都放进索引以免回表
+        @Index(name = "idx_user_type_time_category_cents_deleted",
+                columnList = "user_id, type, bill_time, category_id, amount_cents, amount, deleted_at")
+})
+@SQLRestriction("deleted_at IS NULL")
 @Data
 public class Bill implements Serializable {
 
@@ -25,6 +35,13 @@ public class Bill implements Serializable {
     @Column(nullable = false)
     private BigDecimal amount;
 
+    /**
+     * 以分为单位的金额，汇总时按 long 累加。它不是独立的数据来源：实体写入时在 onCreate/onUpdate 中由 amount 换算，
+     * 批量导入的 JDBC 插入也同时写两列。amount 仍保留，接口、导入导出、最大值和金额分布分桶都读它
+     */
+    @Column(name = "amount_cents", nullable = false)
+    private Long amountCents;
+
     @Column(nullable = false)
     private String type; // "expense" or "income"
 
@@ -39,14 +56,22 @@ public class Bill implements Serializable {
     @Column(name = "update_time", nullable = false)
     private LocalDateTime updateTime;
 
+    /**
+     * 软删除时间，非空的行对所有实体查询不可见，由后台任务定期物理清除
+     */
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     @PrePersist
     protected void onCreate() {
         createTime = LocalDateTime.now();
         updateTime = LocalDateTime.now();
+        amountCents = AmountCents.of(amount);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updateTime = LocalDateTime.now();
+        amountCents = AmountCents.of(amount);
     }
 }
\ No newline at end of file
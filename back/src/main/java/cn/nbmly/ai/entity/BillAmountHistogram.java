@@ -0,0 +1,42 @@
+package cn.nbmly.ai.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 账单金额分布草图，每个 (用户, 日期, 分类, 类型, 对数桶) 一行，记录落入该桶的账单笔数，
+ * 桶号由 {@link cn.nbmly.ai.util.AmountSketch#bucketOf} 计算
+ */
+@Entity
+@Table(name = "bill_amount_histogram", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_histogram_user_day_category_type_bucket",
+                columnNames = { "user_id", "bill_day", "category_id", "type", "bucket" })
+})
+@Data
+public class BillAmountHistogram implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "bill_day", nullable = false)
+    private LocalDate billDay;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private String type; // "expense" or "income"
+
+    @Column(nullable = false)
+    private Integer bucket;
+
+    @Column(name = "bill_count", nullable = false)
+    private Long billCount;
+}
@@ -0,0 +1,45 @@
+package cn.nbmly.ai.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 账单日汇总，每个 (用户, 日期, 分类, 类型) 一行，由账单写操作增量维护
+ */
+@Entity
+@Table(name = "bill_daily_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rollup_user_day_category_type",
+                columnNames = { "user_id", "bill_day", "category_id", "type" })
+})
+@Data
+public class BillDailyRollup implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "bill_day", nullable = false)
+    private LocalDate billDay;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(nullable = false)
+    private String type; // "expense" or "income"
+
+    @Column(name = "total_cents", nullable = false)
+    private Long totalCents;
+
+    @Column(name = "bill_count", nullable = false)
+    private Long billCount;
+
+    @Column(name = "max_amount", nullable = false, precision = 38, scale = 2)
+    private BigDecimal maxAmount;
+}
@@ -0,0 +1,31 @@
+package cn.nbmly.ai.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 账单删除记录，供客户端增量同步时得知哪些账单已被删除
+ */
+@Entity
+@Table(name = "bill_tombstone", indexes = {
+        @Index(name = "idx_tombstone_user_delete_time", columnList = "user_id, delete_time")
+})
+@Data
+public class BillTombstone implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "bill_id", nullable = false)
+    private Long billId;
+
+    @Column(name = "delete_time", nullable = false)
+    private LocalDateTime deleteTime;
+}
@@ -2,12 +2,16 @@ package cn.nbmly.ai.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "category")
+@Table(name = "category", indexes = {
+        @Index(name = "idx_category_deleted_at", columnList = "deleted_at")
+})
+@SQLRestriction("deleted_at IS NULL")
 @Data
 public class Category implements Serializable {
 
@@ -30,6 +34,9 @@ public class Category implements Serializable {
     @Column(name = "update_time", nullable = false)
     private LocalDateTime updateTime;
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt; // 软删除时间
+
     @PrePersist
     protected void onCreate() {
         createTime = LocalDateTime.now();
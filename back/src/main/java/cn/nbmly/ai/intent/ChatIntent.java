@@ -0,0 +1,15 @@
+package cn.nbmly.ai.intent;
+
+/**
+ * 本地路由可以直接执行的对话意图，UNKNOWN 表示交给大模型
+ */
+public enum ChatIntent {
+    HELP,
+    VIEW_CATEGORIES,
+    CREATE_CATEGORY,
+    VIEW_STATISTICS,
+    QUERY_BILLS,
+    CREATE_BILL,
+    DELETE_BILL,
+    UNKNOWN
+}
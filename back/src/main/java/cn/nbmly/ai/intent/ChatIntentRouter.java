@@ -0,0 +1,276 @@
+package cn.nbmly.ai.intent;
+
+import cn.nbmly.ai.service.CategoryMatcherService;
+import cn.nbmly.ai.util.BillDescriptionLexer;
+import cn.nbmly.ai.util.DateRangeParser;
+import cn.nbmly.ai.util.KeywordAutomaton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 大模型之前的本地意图路由：启动时把所有提示词编译进一个 Aho-Corasick 自动机，一次扫描得到消息的提示词集合，
+ * 再按规则给每个意图打分。只有明确无歧义的消息在本地执行，带疑问、上下文指代或修改的消息一律交给大模型。
+ * 同时记录本地命中率和大模型耗时，用于估算节省的延迟
+ */
+@Component
+public class ChatIntentRouter {
+
+    private static final int HELP = 1;
+    private static final int VIEW = 1 << 1;
+    private static final int CATEGORY = 1 << 2;
+    private static final int STATS = 1 << 3;
+    private static final int CREATE = 1 << 4;
+    private static final int DELETE = 1 << 5;
+    private static final int UPDATE = 1 << 6;
+    private static final int BILL = 1 << 7;
+    private static final int RECORD = 1 << 8; // 记账动作：花了、买、赚了
+    private static final int FLOW = 1 << 9; // 收入、支出
+    private static final int HOW_MUCH = 1 << 10;
+    private static final int CONTEXT = 1 << 11; // 刚才、那个等指代，需要对话上下文
+    private static final int OPEN = 1 << 12; // 开放式提问，需要大模型理解
+
+    private static final KeywordAutomaton<Integer> CUES;
+
+    static {
+        Map<String, Integer> cues = new LinkedHashMap<>();
+        put(cues, HELP, "帮助", "help", "能做什么", "功能", "怎么用", "使用说明");
+        put(cues, VIEW, "查看", "看看", "看下", "看一下", "显示", "列出", "查询", "查一下", "查", "给出", "有哪些", "列表");
+        put(cues, CATEGORY, "分类", "类别");
+        put(cues, STATS, "统计", "汇总", "总结", "余额", "收支");
+        put(cues, CREATE, "添加", "创建", "新增", "增加", "新建");
+        put(cues, DELETE, "删除", "移除", "删掉", "删");
+        put(cues, UPDATE, "修改", "更新", "编辑", "改成", "改为", "改");
+        put(cues, BILL, "账单", "记录", "明细", "流水");
+        put(cues, RECORD, "记一笔", "记账", "记", "花了", "花", "买了", "买", "支付", "付了", "消费", "赚了", "赚", "收到",
+                "工资");
+        put(cues, FLOW, "收入", "支出");
+        put(cues, HOW_MUCH, "多少");
+        put(cues, CONTEXT, "刚才", "那个", "这个", "上面", "下面", "之前", "上一条", "第");
+        put(cues, OPEN, "吗", "?", "？", "为什么", "怎么", "如何", "建议", "分析", "应该", "能不能", "可以", "对比", "比较",
+                "预算", "计划");
+        CUES = KeywordAutomaton.build(cues);
+    }
+
+    // 最多 18 位，保证 Long.parseLong 不溢出；更长的ID交给大模型
+    private static final Pattern DELETE_BILL_ID = Pattern.compile("^删除(?:账单#?(\\d{1,18})|(\\d{1,18})号账单)$");
+    private static final String[] CATEGORY_NAME_NOISE = { "添加", "创建", "新增", "增加", "新建", "一个", "类别", "分类",
+            "收入", "支出", "的", "请", "帮我" };
+
+    private final CategoryMatcherService categoryMatcherService;
+    private final boolean enabled;
+    private final double minConfidence;
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder localNanos = new LongAdder();
+    private final LongAdder llmCalls = new LongAdder();
+    private final LongAdder llmNanos = new LongAdder();
+    private final Map<ChatIntent, LongAdder> hits = new EnumMap<>(ChatIntent.class);
+
+    public ChatIntentRouter(CategoryMatcherService categoryMatcherService,
+            @Value("${bookkeeping.intent-router.enabled:true}") boolean enabled,
+            @Value("${bookkeeping.intent-router.min-confidence:0.8}") double minConfidence) {
+        this.categoryMatcherService = categoryMatcherService;
+        this.enabled = enabled;
+        this.minConfidence = minConfidence;
+        for (ChatIntent intent : ChatIntent.values()) {
+            hits.put(intent, new LongAdder());
+        }
+    }
+
+    /**
+     * 路由一条消息；关闭路由或置信度不足时返回 UNKNOWN
+     */
+    public ChatRoute route(String message, Long userId) {
+        messages.increment();
+        ChatRoute route = new ChatRoute();
+        if (!enabled || message == null || message.trim().isEmpty()) {
+            return route;
+        }
+        String text = message.trim().toLowerCase();
+
+        int cues = 0;
+        for (KeywordAutomaton.Match<Integer> match : CUES.findAll(text, null)) {
+            cues |= match.getValue();
+        }
+        BillDescriptionLexer.Result tokens;
+        try {
+            tokens = BillDescriptionLexer.lex(text);
+        } catch (RuntimeException e) {
+            return route; // 如无效日期，交给大模型解释
+        }
+        boolean amount = tokens.getAmount() != null && tokens.getCurrencyUnit() != null;
+        boolean period = DateRangeParser.parse(text, LocalDate.now()) != null;
+        boolean category = categoryMatcherService.findLongest(userId, text, null) != null; // 提到了用户的某个分类
+
+        double best = 0;
+        double second = 0;
+        for (ChatIntent intent : ChatIntent.values()) {
+            double score = score(intent, cues, amount, period, category, text);
+            if (score > best) {
+                second = best;
+                best = score;
+                route.setIntent(intent);
+            } else if (score > second) {
+                second = score;
+            }
+        }
+        // 多个意图同时成立时按差距打折，长消息往往含有规则覆盖不到的限定条件
+        double confidence = best - second / 2 - Math.max(0, text.length() - 40) / 20 * 0.1;
+        route.setConfidence(Math.max(0, confidence));
+        if (route.getConfidence() < minConfidence) {
+            route.setIntent(ChatIntent.UNKNOWN);
+        }
+        // 只填充最终意图的参数，落选意图的解析结果不会混入
+        switch (route.getIntent()) {
+            case CREATE_CATEGORY:
+                route.setCategoryName(categoryName(text));
+                route.setCategoryType(text.contains("收入") ? "income" : "expense");
+                break;
+            case QUERY_BILLS:
+                route.setSummary(isSummary(cues, period, category));
+                break;
+            case DELETE_BILL:
+                route.setBillId(deleteBillId(text));
+                break;
+            default:
+                break;
+        }
+        return route;
+    }
+
+    public void recordLocal(ChatIntent intent, long nanos) {
+        hits.get(intent).increment();
+        localNanos.add(nanos);
+    }
+
+    public void recordLlm(long nanos) {
+        llmCalls.increment();
+        llmNanos.add(nanos);
+    }
+
+    /**
+     * 本地命中率、两条路径的平均耗时与估算节省的延迟
+     */
+    public Map<String, Object> getStats() {
+        long total = messages.sum();
+        long local = 0;
+        Map<String, Long> byIntent = new LinkedHashMap<>();
+        for (ChatIntent intent : ChatIntent.values()) {
+            if (intent != ChatIntent.UNKNOWN) {
+                long count = hits.get(intent).sum();
+                byIntent.put(intent.name(), count);
+                local += count;
+            }
+        }
+        long calls = llmCalls.sum();
+        double averageLocalMillis = local > 0 ? localNanos.sum() / 1_000_000.0 / local : 0;
+        double averageLlmMillis = calls > 0 ? llmNanos.sum() / 1_000_000.0 / calls : 0;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("minConfidence", minConfidence);
+        result.put("messageCount", total);
+        result.put("localHitCount", local);
+        result.put("llmCallCount", calls);
+        result.put("hitRate", total > 0 ? (double) local / total : 0);
+        result.put("hitsByIntent", byIntent);
+        result.put("averageLocalMillis", averageLocalMillis);
+        result.put("averageLlmMillis", averageLlmMillis);
+        // 按大模型平均耗时估算，尚无大模型调用时为 0
+        result.put("estimatedSavedMillis", calls > 0 ? local * Math.max(0, averageLlmMillis - averageLocalMillis) : 0);
+        return result;
+    }
+
+    private double score(ChatIntent intent, int cues, boolean amount, boolean period, boolean category,
+            String text) {
+        if (intent == ChatIntent.HELP) {
+            return has(cues, HELP) && !has(cues, VIEW | CATEGORY | STATS | CREATE | DELETE | UPDATE | BILL | RECORD
+                    | FLOW | CONTEXT) && !amount ? 0.95 : 0;
+        }
+        // 修改、指代和开放式提问都需要大模型理解
+        if (has(cues, UPDATE | CONTEXT | OPEN)) {
+            return 0;
+        }
+        switch (intent) {
+            case VIEW_CATEGORIES:
+                if (has(cues, CATEGORY) && !has(cues, CREATE | DELETE | STATS | BILL | RECORD | HOW_MUCH) && !amount
+                        && !period) {
+                    return has(cues, VIEW) ? 0.95 : 0.85;
+                }
+                return 0;
+            case CREATE_CATEGORY:
+                return has(cues, CREATE) && has(cues, CATEGORY) && !has(cues, DELETE | BILL | VIEW) && !amount
+                        && !categoryName(text).isEmpty() ? 0.9 : 0;
+            case VIEW_STATISTICS:
+                // 带时间或分类的统计需要按条件汇总，交给大模型选择工具
+                return has(cues, STATS) && !has(cues, CATEGORY | CREATE | DELETE | RECORD) && !amount && !period
+                        && !category ? 0.9 : 0;
+            case QUERY_BILLS:
+                if (has(cues, CREATE | DELETE | STATS) || amount || (has(cues, CATEGORY) && !has(cues, BILL))) {
+                    return 0;
+                }
+                if (isSummary(cues, period, category)) {
+                    return 0.85;
+                }
+                return has(cues, VIEW) && (has(cues, BILL | FLOW) || period || category) && !has(cues, RECORD)
+                        ? 0.85 : 0;
+            case CREATE_BILL:
+                if (!amount || has(cues, VIEW | STATS | CREATE | DELETE | HOW_MUCH | CATEGORY)) {
+                    return 0;
+                }
+                return has(cues, RECORD | FLOW) ? 0.9 : (category ? 0.8 : 0);
+            case DELETE_BILL:
+                return has(cues, DELETE) && has(cues, BILL) && !has(cues, CATEGORY) && deleteBillId(text) != null
+                        ? 0.9 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 查询账单时是否附带金额汇总，如"今天吃饭花了多少钱"
+     */
+    private static boolean isSummary(int cues, boolean period, boolean category) {
+        return has(cues, HOW_MUCH) && (period || category || has(cues, RECORD | FLOW));
+    }
+
+    /**
+     * 去掉动作和修饰词后剩下的分类名，可能为空
+     */
+    private static String categoryName(String text) {
+        String name = text;
+        for (String noise : CATEGORY_NAME_NOISE) {
+            name = name.replace(noise, "");
+        }
+        return name.replaceAll("\\s+", "");
+    }
+
+    /**
+     * "删除账单12"、"删除12号账单"中的账单ID，其他说法返回 null
+     */
+    private static Long deleteBillId(String text) {
+        Matcher matcher = DELETE_BILL_ID.matcher(text.replaceAll("\\s+", ""));
+        if (!matcher.matches()) {
+            return null;
+        }
+        return Long.parseLong(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+    }
+
+    private static boolean has(int cues, int flags) {
+        return (cues & flags) != 0;
+    }
+
+    private static void put(Map<String, Integer> cues, int flag, String... words) {
+        for (String word : words) {
+            cues.put(word, flag);
+        }
+    }
+}
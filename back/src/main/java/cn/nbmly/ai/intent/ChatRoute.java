@@ -0,0 +1,16 @@
+package cn.nbmly.ai.intent;
+
+import lombok.Data;
+
+/**
+ * 意图路由结果，confidence 在 0 到 1 之间，低于阈值时交给大模型
+ */
+@Data
+public class ChatRoute {
+    private ChatIntent intent = ChatIntent.UNKNOWN;
+    private double confidence;
+    private boolean summary; // 查询账单时是否附带金额汇总，如"今天吃饭花了多少钱"
+    private Long billId; // DELETE_BILL
+    private String categoryName; // CREATE_CATEGORY
+    private String categoryType; // CREATE_CATEGORY
+}
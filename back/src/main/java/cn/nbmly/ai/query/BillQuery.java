@@ -0,0 +1,33 @@
+package cn.nbmly.ai.query;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * 编译后的账单查询条件，各字段之间为"与"关系，字段为空表示不限
+ */
+@Data
+public class BillQuery {
+    private String type; // "expense" or "income"
+    private Set<Long> categoryIds; // 命中其一即可
+    private BigDecimal minAmount;
+    private boolean minInclusive;
+    private BigDecimal maxAmount;
+    private boolean maxInclusive;
+    private LocalDateTime startTime; // 含
+    private LocalDateTime endTime; // 不含
+    private String remarkKeyword; // 备注包含该关键词
+    private Integer limit; // 按账单时间倒序取前若干条
+
+    /**
+     * 是否设置了任一过滤条件，为 false 时查询命中用户的全部账单
+     */
+    public boolean hasFilter() {
+        return type != null || (categoryIds != null && !categoryIds.isEmpty()) || minAmount != null
+                || maxAmount != null || startTime != null || endTime != null || remarkKeyword != null
+                || limit != null;
+    }
+}
@@ -0,0 +1,298 @@
+package cn.nbmly.ai.query;
+
+import cn.nbmly.ai.dto.CategoryDTO;
+import cn.nbmly.ai.service.CategoryMatcherService;
+import cn.nbmly.ai.util.DateRangeParser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 把自然语言账单查询编译为 BillQuery：收支类型、提到的分类、金额上下限、时间范围、条数和备注关键词。
+ * 查询只解析一次，过滤与条数限制交给数据库完成
+ */
+@Component
+@RequiredArgsConstructor
+public class BillQueryCompiler {
+
+    private static final String[] INCOME_WORDS = { "收入", "工资", "赚" };
+    private static final String[] EXPENSE_WORDS = { "支出", "花", "消费", "买" };
+
+    // 同一位置按数组顺序匹配，长词须排在以同一字开头的短词之前
+    private static final Comparison[] PREFIX_COMPARISONS = {
+            new Comparison("大于等于", true, true),
+            new Comparison("大于", true, false),
+            new Comparison("超过", true, false),
+            new Comparison("高于", true, false),
+            new Comparison("多于", true, false),
+            new Comparison("不少于", true, true),
+            new Comparison("不低于", true, true),
+            new Comparison("不超过", false, true),
+            new Comparison("不高于", false, true),
+            new Comparison("不到", false, false),
+            new Comparison("小于等于", false, true),
+            new Comparison("小于", false, false),
+            new Comparison("低于", false, false),
+            new Comparison("少于", false, false),
+    };
+    private static final Comparison[] SUFFIX_COMPARISONS = {
+            new Comparison("以上", true, true),
+            new Comparison("以下", false, true),
+            new Comparison("以内", false, true),
+    };
+    private static final String[] UNITS = { "块钱", "块", "元", "RMB" };
+    private static final String[] RANGE_CONNECTORS = { "到", "至", "-", "~", "～" };
+    private static final String DATE_UNITS = "年月日号天周";
+
+    // 只剩这些词时不作为备注关键词
+    private static final String[] FILLER_WORDS = { "帮我", "请", "查询", "查看", "查一下", "查", "显示", "给出", "列出",
+            "找", "删除", "删掉", "我的", "我", "所有", "全部", "账单", "记录", "一下", "的", "了" };
+
+    private final CategoryMatcherService categoryMatcherService;
+
+    public BillQuery compile(String text, Long userId) {
+        BillQuery query = new BillQuery();
+        if (text == null || text.trim().isEmpty()) {
+            return query;
+        }
+
+        boolean income = containsAny(text, INCOME_WORDS);
+        boolean expense = containsAny(text, EXPENSE_WORDS);
+        if (income != expense) {
+            query.setType(income ? "income" : "expense");
+        }
+
+        Set<Long> categoryIds = new LinkedHashSet<>();
+        for (CategoryDTO category : categoryMatcherService.findAll(userId, text)) {
+            categoryIds.add(category.getId());
+        }
+        if (!categoryIds.isEmpty()) {
+            query.setCategoryIds(categoryIds);
+        }
+
+        DateRangeParser.Range range = DateRangeParser.parse(text, LocalDate.now());
+        if (range != null) {
+            query.setStartTime(range.getStartTime());
+            query.setEndTime(range.getEndTime());
+        }
+
+        scanAmountsAndLimit(text, query);
+
+        boolean structured = query.getCategoryIds() != null || range != null || query.getMinAmount() != null
+                || query.getMaxAmount() != null || query.getLimit() != null;
+        if (!structured) {
+            String keyword = stripFillers(text);
+            if (!keyword.isEmpty()) {
+                query.setRemarkKeyword(keyword);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * 单遍扫描金额比较（大于100、50元以上、10到50元）和条数（前5条、最近10笔）
+     */
+    private void scanAmountsAndLimit(String text, BillQuery query) {
+        int i = 0;
+        while (i < text.length()) {
+            Comparison prefix = matchComparison(text, i, PREFIX_COMPARISONS);
+            if (prefix != null) {
+                int start = skipSpaces(text, i + prefix.word.length());
+                if (start < text.length() && (text.charAt(start) == '¥' || text.charAt(start) == '￥')) {
+                    start++;
+                }
+                int end = scanNumber(text, start);
+                if (end > start && !isDateUnit(text, end)) {
+                    applyBound(query, prefix, new BigDecimal(text.substring(start, end)));
+                    i = skipUnit(text, end);
+                } else {
+                    i += prefix.word.length();
+                }
+                continue;
+            }
+
+            if (!isDigit(text.charAt(i)) || (i > 0 && (isDigit(text.charAt(i - 1)) || text.charAt(i - 1) == '.'))) {
+                i++;
+                continue;
+            }
+            int dateEnd = scanNumericDate(text, i);
+            if (dateEnd > 0) {
+                i = dateEnd;
+                continue;
+            }
+            int end = scanNumber(text, i);
+            if (isDateUnit(text, end)) {
+                i = end;
+                continue;
+            }
+            if (end < text.length() && (text.charAt(end) == '条' || text.charAt(end) == '笔')) {
+                String number = text.substring(i, end);
+                if (number.indexOf('.') < 0 && number.length() <= 6 && Integer.parseInt(number) > 0) {
+                    query.setLimit(Integer.parseInt(number));
+                }
+                i = end + 1;
+                continue;
+            }
+
+            BigDecimal amount = new BigDecimal(text.substring(i, end));
+            int next = skipUnit(text, end);
+            Comparison suffix = matchComparison(text, skipSpaces(text, next), SUFFIX_COMPARISONS);
+            if (suffix != null) {
+                applyBound(query, suffix, amount);
+                i = skipSpaces(text, next) + suffix.word.length();
+                continue;
+            }
+            int upperStart = skipRangeConnector(text, next);
+            int upperEnd = upperStart > 0 ? scanNumber(text, upperStart) : -1;
+            if (upperEnd > upperStart && !isDateUnit(text, upperEnd)) {
+                BigDecimal upper = new BigDecimal(text.substring(upperStart, upperEnd));
+                query.setMinAmount(amount.min(upper));
+                query.setMinInclusive(true);
+                query.setMaxAmount(amount.max(upper));
+                query.setMaxInclusive(true);
+                i = skipUnit(text, upperEnd);
+                continue;
+            }
+            i = next;
+        }
+    }
+
+    private void applyBound(BillQuery query, Comparison comparison, BigDecimal amount) {
+        if (comparison.lower) {
+            query.setMinAmount(amount);
+            query.setMinInclusive(comparison.inclusive);
+        } else {
+            query.setMaxAmount(amount);
+            query.setMaxInclusive(comparison.inclusive);
+        }
+    }
+
+    private String stripFillers(String text) {
+        String keyword = text;
+        for (String word : FILLER_WORDS) {
+            keyword = keyword.replace(word, "");
+        }
+        for (String word : INCOME_WORDS) {
+            keyword = keyword.replace(word, "");
+        }
+        for (String word : EXPENSE_WORDS) {
+            keyword = keyword.replace(word, "");
+        }
+        return keyword.replaceAll("\\s+", "").trim();
+    }
+
+    private static Comparison matchComparison(String text, int index, Comparison[] comparisons) {
+        if (index >= text.length()) {
+            return null;
+        }
+        char c = text.charAt(index);
+        for (Comparison comparison : comparisons) {
+            if (comparison.word.charAt(0) == c && text.startsWith(comparison.word, index)) {
+                return comparison;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 整数或一位小数点的小数，返回结束下标，不是数字时返回 index
+     */
+    private static int scanNumber(String text, int index) {
+        int i = index;
+        while (i < text.length() && isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i > index && i + 1 < text.length() && text.charAt(i) == '.' && isDigit(text.charAt(i + 1))) {
+            i++;
+            while (i < text.length() && isDigit(text.charAt(i))) {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 2024-03-05、2024/3/5 这类日期由 DateRangeParser 处理，返回其结束下标，不是日期时返回 -1
+     */
+    private static int scanNumericDate(String text, int index) {
+        int dashes = 0;
+        int slashes = 0;
+        int i = index;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '-') {
+                dashes++;
+            } else if (c == '/') {
+                slashes++;
+            } else if (!isDigit(c) && c != '.') {
+                break;
+            }
+            i++;
+        }
+        return dashes >= 2 || slashes >= 2 ? i : -1;
+    }
+
+    private static int skipUnit(String text, int index) {
+        int i = skipSpaces(text, index);
+        for (String unit : UNITS) {
+            if (text.startsWith(unit, i)) {
+                return i + unit.length();
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 跳过区间连接词，返回第二个数字的起始下标，没有连接词时返回 -1
+     */
+    private static int skipRangeConnector(String text, int index) {
+        int i = skipSpaces(text, index);
+        for (String connector : RANGE_CONNECTORS) {
+            if (text.startsWith(connector, i)) {
+                return skipSpaces(text, i + connector.length());
+            }
+        }
+        return -1;
+    }
+
+    private static int skipSpaces(String text, int index) {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isDateUnit(String text, int index) {
+        return index < text.length() && DATE_UNITS.indexOf(text.charAt(index)) >= 0
+                || text.startsWith("个月", index) || text.startsWith("个星期", index);
+    }
+
+    private static boolean containsAny(String text, String[] words) {
+        for (String word : words) {
+            if (text.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static final class Comparison {
+        private final String word;
+        private final boolean lower; // true 为下限
+        private final boolean inclusive;
+
+        Comparison(String word, boolean lower, boolean inclusive) {
+            this.word = word;
+            this.lower = lower;
+            this.inclusive = inclusive;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package cn.nbmly.ai.query;
+
+import cn.nbmly.ai.entity.Bill;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把 BillQuery 翻译为 JPA Criteria 条件，user_id、type、bill_time、category_id、amount 均可走联合索引
+ */
+public final class BillSpecifications {
+
+    private BillSpecifications() {
+    }
+
+    public static Specification<Bill> matching(Long userId, BillQuery query) {
+        return (root, criteriaQuery, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            predicates.add(cb.equal(root.get("userId"), userId));
+            if (query.getType() != null) {
+                predicates.add(cb.equal(root.get("type"), query.getType()));
+            }
+            if (query.getStartTime() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("billTime"), query.getStartTime()));
+            }
+            if (query.getEndTime() != null) {
+                predicates.add(cb.lessThan(root.get("billTime"), query.getEndTime()));
+            }
+            if (query.getCategoryIds() != null && !query.getCategoryIds().isEmpty()) {
+                predicates.add(root.get("categoryId").in(query.getCategoryIds()));
+            }
+            if (query.getMinAmount() != null) {
+                predicates.add(query.isMinInclusive()
+                        ? cb.greaterThanOrEqualTo(root.get("amount"), query.getMinAmount())
+                        : cb.greaterThan(root.get("amount"), query.getMinAmount()));
+            }
+            if (query.getMaxAmount() != null) {
+                predicates.add(query.isMaxInclusive()
+                        ? cb.lessThanOrEqualTo(root.get("amount"), query.getMaxAmount())
+                        : cb.lessThan(root.get("amount"), query.getMaxAmount()));
+            }
+            if (query.getRemarkKeyword() != null) {
+                predicates.add(cb.like(root.get("remarks"), "%" + escapeLike(query.getRemarkKeyword()) + "%", '\\'));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    private static String escapeLike(String keyword) {
+        StringBuilder escaped = new StringBuilder(keyword.length());
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package cn.nbmly.ai.repository;
+
+import cn.nbmly.ai.entity.BillAmountHistogram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BillAmountHistogramRepository extends JpaRepository<BillAmountHistogram, Long> {
+
+    /**
+     * 合并用户全部日期的分布草图，categoryId 为空时合并所有分类
+     */
+    @Query("SELECT h.bucket AS bucket, SUM(h.billCount) AS billCount FROM BillAmountHistogram h "
+            + "WHERE h.userId = ?1 AND h.type = ?2 AND (?3 IS NULL OR h.categoryId = ?3) GROUP BY h.bucket")
+    List<StatisticsProjection.BucketCount> sumBuckets(Long userId, String type, Long categoryId);
+
+    /**
+     * 合并 [startDay, endDay) 内各日的分布草图
+     */
+    @Query("SELECT h.bucket AS bucket, SUM(h.billCount) AS billCount FROM BillAmountHistogram h "
+            + "WHERE h.userId = ?1 AND h.type = ?2 AND (?3 IS NULL OR h.categoryId = ?3) "
+            + "AND h.billDay >= ?4 AND h.billDay < ?5 GROUP BY h.bucket")
+    List<StatisticsProjection.BucketCount> sumBucketsBetweenDays(Long userId, String type, Long categoryId,
+            LocalDate startDay, LocalDate endDay);
+}
@@ -0,0 +1,87 @@
+package cn.nbmly.ai.repository;
+
+import cn.nbmly.ai.entity.BillDailyRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface BillDailyRollupRepository extends JpaRepository<BillDailyRollup, Long> {
+
+    /**
+     * 按收支类型汇总：合计、最大值、笔数
+     */
+    @Query("SELECT r.type AS type, SUM(r.totalCents) AS totalCents, MAX(r.maxAmount) AS maxAmount, "
+            + "SUM(r.billCount) AS billCount FROM BillDailyRollup r WHERE r.userId = ?1 GROUP BY r.type")
+    List<StatisticsProjection.TypeSummary> sumByType(Long userId);
+
+    /**
+     * 按收支类型汇总 [startDay, endDay) 内的整天
+     */
+    @Query("SELECT r.type AS type, SUM(r.totalCents) AS totalCents, MAX(r.maxAmount) AS maxAmount, "
+            + "SUM(r.billCount) AS billCount FROM BillDailyRollup r "
+            + "WHERE r.userId = ?1 AND r.billDay >= ?2 AND r.billDay < ?3 GROUP BY r.type")
+    List<StatisticsProjection.TypeSummary> sumByTypeBetweenDays(Long userId, LocalDate startDay, LocalDate endDay);
+
+    /**
+     * 按收支类型汇总严格晚于各边界日的整天金额，边界日当天由调用方从账单表补齐
+     */
+    @Query("SELECT r.type AS type, "
+            + "SUM(CASE WHEN r.billDay > ?2 THEN r.totalCents ELSE 0 END) AS weekCents, "
+            + "SUM(CASE WHEN r.billDay > ?3 THEN r.totalCents ELSE 0 END) AS monthCents, "
+            + "SUM(r.totalCents) AS yearCents "
+            + "FROM BillDailyRollup r WHERE r.userId = ?1 AND r.billDay > ?4 GROUP BY r.type")
+    List<StatisticsProjection.WindowSummary> sumByTypeAfterDays(Long userId, LocalDate weekDay, LocalDate monthDay,
+            LocalDate yearDay);
+
+    @Query("SELECT r.categoryId AS categoryId, c.name AS categoryName, c.type AS categoryType, "
+            + "SUM(r.totalCents) AS totalCents FROM BillDailyRollup r LEFT JOIN Category c ON c.id = r.categoryId "
+            + "WHERE r.userId = ?1 GROUP BY r.categoryId, c.name, c.type")
+    List<StatisticsProjection.CategorySummary> sumByCategory(Long userId);
+
+    /**
+     * 指定类型金额最高的分类，条数由 pageable 限制
+     */
+    @Query("SELECT r.categoryId AS categoryId, c.name AS categoryName, c.type AS categoryType, "
+            + "SUM(r.totalCents) AS totalCents FROM BillDailyRollup r LEFT JOIN Category c ON c.id = r.categoryId "
+            + "WHERE r.userId = ?1 AND r.type = ?2 GROUP BY r.categoryId, c.name, c.type "
+            + "ORDER BY SUM(r.totalCents) DESC")
+    List<StatisticsProjection.CategorySummary> findTopCategoriesByType(Long userId, String type, Pageable pageable);
+
+    @Query("SELECT r.categoryId AS categoryId, c.name AS categoryName, c.type AS categoryType, "
+            + "SUM(r.totalCents) AS totalCents FROM BillDailyRollup r LEFT JOIN Category c ON c.id = r.categoryId "
+            + "WHERE r.userId = ?1 AND r.type = ?2 AND r.billDay >= ?3 AND r.billDay < ?4 "
+            + "GROUP BY r.categoryId, c.name, c.type ORDER BY SUM(r.totalCents) DESC")
+    List<StatisticsProjection.CategorySummary> findTopCategoriesByTypeBetweenDays(Long userId, String type,
+            LocalDate startDay, LocalDate endDay, Pageable pageable);
+
+    @Query("SELECT YEAR(r.billDay) AS periodYear, MONTH(r.billDay) AS periodMonth, 0 AS periodDay, "
+            + "r.type AS type, SUM(r.totalCents) AS totalCents FROM BillDailyRollup r WHERE r.userId = ?1 "
+            + "GROUP BY YEAR(r.billDay), MONTH(r.billDay), r.type")
+    List<StatisticsProjection.PeriodSummary> sumByMonth(Long userId);
+
+    @Query("SELECT YEAR(r.billDay) AS periodYear, MONTH(r.billDay) AS periodMonth, DAY(r.billDay) AS periodDay, "
+            + "r.type AS type, SUM(r.totalCents) AS totalCents FROM BillDailyRollup r WHERE r.userId = ?1 "
+            + "GROUP BY r.billDay, r.type")
+    List<StatisticsProjection.PeriodSummary> sumByDay(Long userId);
+
+    /**
+     * 用户全部日汇总行（带分类信息），供合并统计一次遍历
+     */
+    @Query("SELECT r.billDay AS billDay, r.categoryId AS categoryId, c.name AS categoryName, "
+            + "c.type AS categoryType, r.type AS type, r.totalCents AS totalCents, r.billCount AS billCount, "
+            + "r.maxAmount AS maxAmount FROM BillDailyRollup r LEFT JOIN Category c ON c.id = r.categoryId "
+            + "WHERE r.userId = ?1 ORDER BY r.billDay")
+    List<StatisticsProjection.RollupRow> findRowsByUserId(Long userId);
+
+    @Query("SELECT r.billDay AS billDay, r.categoryId AS categoryId, c.name AS categoryName, "
+            + "c.type AS categoryType, r.type AS type, r.totalCents AS totalCents, r.billCount AS billCount, "
+            + "r.maxAmount AS maxAmount FROM BillDailyRollup r LEFT JOIN Category c ON c.id = r.categoryId "
+            + "WHERE r.userId = ?1 AND r.billDay >= ?2 AND r.billDay < ?3 ORDER BY r.billDay")
+    List<StatisticsProjection.RollupRow> findRowsByUserIdBetweenDays(Long userId, LocalDate startDay,
+            LocalDate endDay);
+}
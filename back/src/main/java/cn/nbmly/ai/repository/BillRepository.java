@@ -1,15 +1,122 @@
 package cn.nbmly.ai.repository;
 
+import cn.nbmly.ai.dto.BillDTO;
 import cn.nbmly.ai.entity.Bill;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BillRepository extends JpaRepository<Bill, Long> {
+public interface BillRepository extends JpaRepository<Bill, Long>, JpaSpecificationExecutor<Bill> {
 
-    @Query(value = "SELECT * FROM bill WHERE user_id = ?1 ORDER BY bill_time DESC", nativeQuery = true)
+    /**
+     * 账单 DTO 投影：一次查询关联出分类名称，分类被删除时显示为"未知分类"
+     */
+    String BILL_DTO_SELECT = "SELECT new cn.nbmly.ai.dto.BillDTO(b.id, b.userId, b.categoryId, "
+            + "COALESCE(c.name, '未知分类'), b.amount, b.type, b.remarks, b.billTime, b.updateTime) "
+            + "FROM Bill b LEFT JOIN Category c ON c.id = b.categoryId ";
+
+    @Query(value = "SELECT * FROM bill WHERE user_id = ?1 AND deleted_at IS NULL ORDER BY bill_time DESC", nativeQuery = true)
     List<Bill> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 按时间范围查询账单，区间为 [startTime, endTime)，走 (user_id, bill_time) 联合索引
+     */
+    @Query(value = "SELECT * FROM bill WHERE user_id = ?1 AND bill_time >= ?2 AND bill_time < ?3 "
+            + "AND deleted_at IS NULL ORDER BY bill_time DESC", nativeQuery = true)
+    List<Bill> findByUserIdAndBillTimeRange(Long userId, LocalDateTime startTime, LocalDateTime endTime);
+
+    @Query(BILL_DTO_SELECT + "WHERE b.id = ?1")
+    Optional<BillDTO> findDtoById(Long id);
+
+    @Query(BILL_DTO_SELECT + "WHERE b.userId = ?1 ORDER BY b.billTime DESC")
+    List<BillDTO> findDtosByUserId(Long userId);
+
+    @Query(BILL_DTO_SELECT + "WHERE b.userId = ?1 AND b.billTime >= ?2 AND b.billTime < ?3 ORDER BY b.billTime DESC")
+    List<BillDTO> findDtosByUserIdAndBillTimeRange(Long userId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 增量同步：更新时间在 upperTime 之前、位于游标 (updateTime, id) 之后的账单，走 (user_id, update_time) 索引
+     */
+    @Query(BILL_DTO_SELECT + "WHERE b.userId = ?1 AND b.updateTime < ?2 "
+            + "AND (b.updateTime > ?3 OR (b.updateTime = ?3 AND b.id > ?4)) ORDER BY b.updateTime, b.id")
+    List<BillDTO> findDtoSyncPage(Long userId, LocalDateTime upperTime, LocalDateTime updateTime, Long id,
+            Pageable pageable);
+
+    @Query(BILL_DTO_SELECT + "WHERE b.userId = ?1 AND b.id IN ?2")
+    List<BillDTO> findDtosByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    /**
+     * 游标分页：第一页，条数由 pageable 限制
+     */
+    @Query(BILL_DTO_SELECT + "WHERE b.userId = ?1 ORDER BY b.billTime DESC, b.id DESC")
+    List<BillDTO> findDtoPageByUserId(Long userId, Pageable pageable);
+
+    /**
+     * 游标分页：从 (billTime, id) 之后继续读取，按 bill_time、id 倒序
+     */
+    @Query(BILL_DTO_SELECT + "WHERE b.userId = ?1 AND (b.billTime < ?2 OR (b.billTime = ?2 AND b.id < ?3)) "
+            + "ORDER BY b.billTime DESC, b.id DESC")
+    List<BillDTO> findDtoPageByUserIdAfterCursor(Long userId, LocalDateTime billTime, Long id, Pageable pageable);
+
+    @Query("SELECT COUNT(b) FROM Bill b WHERE b.userId = ?1 AND b.categoryId = ?2")
+    long countByUserIdAndCategoryId(Long userId, Long categoryId);
+
+    /**
+     * 按分类批量软删除，单条 UPDATE 语句，user_id 条件保证只删除本人账单；
+     * 执行前刷新、执行后清空持久化上下文，避免已加载的账单实体仍显示为未删除
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Bill b SET b.deletedAt = ?3 WHERE b.userId = ?1 AND b.categoryId = ?2 AND b.deletedAt IS NULL")
+    int softDeleteByUserIdAndCategoryId(Long userId, Long categoryId, LocalDateTime deletedAt);
+
+    @Query("SELECT COUNT(b) FROM Bill b WHERE b.userId = ?1 AND b.id IN ?2")
+    long countByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    List<Bill> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Bill b SET b.deletedAt = ?3 WHERE b.userId = ?1 AND b.id IN ?2 AND b.deletedAt IS NULL")
+    int softDeleteByUserIdAndIdIn(Long userId, Collection<Long> ids, LocalDateTime deletedAt);
+
+    /**
+     * 按收支类型汇总 [startTime, endTime) 内的账单，用于日汇总表无法覆盖的不足一天的区间
+     */
+    @Query("SELECT b.type AS type, SUM(b.amountCents) AS totalCents, MAX(b.amount) AS maxAmount, "
+            + "COUNT(b) AS billCount FROM Bill b WHERE b.userId = ?1 AND b.billTime >= ?2 AND b.billTime < ?3 "
+            + "GROUP BY b.type")
+    List<StatisticsProjection.TypeSummary> sumByTypeInRange(Long userId, LocalDateTime startTime,
+            LocalDateTime endTime);
+
+    /**
+     * [startTime, endTime) 内指定类型金额最高的分类，走 idx_user_type_time_category_cents_deleted 覆盖索引
+     */
+    @Query("SELECT b.categoryId AS categoryId, c.name AS categoryName, c.type AS categoryType, "
+            + "SUM(b.amountCents) AS totalCents FROM Bill b LEFT JOIN Category c ON c.id = b.categoryId "
+            + "WHERE b.userId = ?1 AND b.type = ?2 AND b.billTime >= ?3 AND b.billTime < ?4 "
+            + "GROUP BY b.categoryId, c.name, c.type ORDER BY SUM(b.amountCents) DESC")
+    List<StatisticsProjection.CategorySummary> findTopCategoriesByTypeInRange(Long userId, String type,
+            LocalDateTime startTime, LocalDateTime endTime, Pageable pageable);
+
+    /**
+     * 一次查询补齐周、月、年三个滚动窗口各自边界日中落在窗口内的金额
+     */
+    @Query("SELECT b.type AS type, "
+            + "SUM(CASE WHEN b.billTime >= ?2 AND b.billTime < ?3 THEN b.amountCents ELSE 0 END) AS weekCents, "
+            + "SUM(CASE WHEN b.billTime >= ?4 AND b.billTime < ?5 THEN b.amountCents ELSE 0 END) AS monthCents, "
+            + "SUM(CASE WHEN b.billTime >= ?6 AND b.billTime < ?7 THEN b.amountCents ELSE 0 END) AS yearCents "
+            + "FROM Bill b WHERE b.userId = ?1 AND ((b.billTime >= ?2 AND b.billTime < ?3) "
+            + "OR (b.billTime >= ?4 AND b.billTime < ?5) OR (b.billTime >= ?6 AND b.billTime < ?7)) "
+            + "GROUP BY b.type")
+    List<StatisticsProjection.WindowSummary> sumByTypeInBoundaryDays(Long userId, LocalDateTime weekStart,
+            LocalDateTime weekEnd, LocalDateTime monthStart, LocalDateTime monthEnd, LocalDateTime yearStart,
+            LocalDateTime yearEnd);
+}
@@ -0,0 +1,37 @@
+package cn.nbmly.ai.repository;
+
+import cn.nbmly.ai.entity.BillTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BillTombstoneRepository extends JpaRepository<BillTombstone, Long> {
+
+    /**
+     * 增量同步：删除时间在 upperTime 之前、位于游标 (deleteTime, id) 之后的删除记录
+     */
+    @Query("SELECT t FROM BillTombstone t WHERE t.userId = ?1 AND t.deleteTime < ?2 "
+            + "AND (t.deleteTime > ?3 OR (t.deleteTime = ?3 AND t.id > ?4)) ORDER BY t.deleteTime, t.id")
+    List<BillTombstone> findSyncPage(Long userId, LocalDateTime upperTime, LocalDateTime deleteTime, Long id,
+            Pageable pageable);
+
+    /**
+     * 批量删除前按同样的条件写入删除记录，只记录属于该用户的账单
+     */
+    @Modifying
+    @Query("INSERT INTO BillTombstone (userId, billId, deleteTime) "
+            + "SELECT b.userId, b.id, ?3 FROM Bill b WHERE b.userId = ?1 AND b.id IN ?2")
+    int insertForBills(Long userId, Collection<Long> ids, LocalDateTime deleteTime);
+
+    @Modifying
+    @Query("INSERT INTO BillTombstone (userId, billId, deleteTime) "
+            + "SELECT b.userId, b.id, ?3 FROM Bill b WHERE b.userId = ?1 AND b.categoryId = ?2")
+    int insertForCategory(Long userId, Long categoryId, LocalDateTime deleteTime);
+}
@@ -10,9 +10,9 @@ import java.util.List;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
-    @Query(value = "SELECT * FROM category WHERE user_id = ?1 AND type = ?2", nativeQuery = true)
+    @Query(value = "SELECT * FROM category WHERE user_id = ?1 AND type = ?2 AND deleted_at IS NULL", nativeQuery = true)
     List<Category> findByUserIdAndType(Long userId, String type);
 
-    @Query(value = "SELECT * FROM category WHERE user_id = ?1", nativeQuery = true)
+    @Query(value = "SELECT * FROM category WHERE user_id = ?1 AND deleted_at IS NULL", nativeQuery = true)
     List<Category> findByUserId(Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package cn.nbmly.ai.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 统计类聚合查询的结果投影，金额合计一律为 long 分，只在组装接口结果时换算为元
+ */
+public interface StatisticsProjection {
+
+    interface TypeSummary {
+        String getType();
+
+        Long getTotalCents();
+
+        BigDecimal getMaxAmount();
+
+        Long getBillCount();
+    }
+
+    interface WindowSummary {
+        String getType();
+
+        Long getWeekCents();
+
+        Long getMonthCents();
+
+        Long getYearCents();
+    }
+
+    interface CategorySummary {
+        Long getCategoryId();
+
+        String getCategoryName();
+
+        String getCategoryType();
+
+        Long getTotalCents();
+    }
+
+    interface PeriodSummary {
+        Integer getPeriodYear();
+
+        Integer getPeriodMonth();
+
+        Integer getPeriodDay();
+
+        String getType();
+
+        Long getTotalCents();
+    }
+
+    interface RollupRow {
+        LocalDate getBillDay();
+
+        Long getCategoryId();
+
+        String getCategoryName();
+
+        String getCategoryType();
+
+        String getType();
+
+        Long getTotalCents();
+
+        Long getBillCount();
+
+        BigDecimal getMaxAmount();
+    }
+
+    interface BucketCount {
+        Integer getBucket();
+
+        Long getBillCount();
+    }
+}
@@ -1,8 +1,10 @@
 package cn.nbmly.ai.service;
 
+import cn.nbmly.ai.analytics.BillTotals;
 import cn.nbmly.ai.dto.BillDTO;
 import cn.nbmly.ai.dto.CategoryDTO;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public interface AiBillService {
@@ -38,9 +40,30 @@ public interface AiBillService {
     String getBillStatistics(Long userId);
 
     /**
-     * 删除指定分类的所有账单
+     * 获取时间范围内的账单统计信息，period 为"上个月"、"最近7天"等时间表达，为空时统计全部
      */
-    List<BillDTO> deleteBillsByCategory(String categoryName, Long userId);
+    String getBillStatistics(Long userId, String period);
+
+    /**
+     * 按类型汇总金额与笔数，type 为空时不区分收支
+     */
+    BillTotals getBillTotals(Long userId, String type);
+
+    /**
+     * 按类型汇总时间范围内的金额与笔数，period 为空时不限时间
+     */
+    BillTotals getBillTotals(Long userId, String type, String period);
+
+    /**
+     * 删除指定分类的所有账单，返回删除数量；dryRun 为 true 时只统计不删除
+     */
+    int deleteBillsByCategory(String categoryName, Long userId, boolean dryRun);
+
+    /**
+     * 删除符合查询条件的所有账单，返回删除数量；dryRun 为 true 时只统计不删除。
+     * 条件不限定任何账单时须包含"所有"或"全部"，否则抛出异常
+     */
+    int batchDeleteBills(String condition, Long userId, boolean dryRun);
 
     /**
      * 查询特定分类的账单
@@ -51,4 +74,14 @@ public interface AiBillService {
      * 按时间范围查询账单
      */
     List<BillDTO> queryBillsByTimeRange(String startDate, String endDate, Long userId);
+
+    /**
+     * 按金额范围查询账单，上下限均包含，为空时不限
+     */
+    List<BillDTO> queryBillsByAmountRange(BigDecimal minAmount, BigDecimal maxAmount, Long userId);
+
+    /**
+     * 按"上周"、"本月"、"3月5日到10日"等时间表达查询账单
+     */
+    List<BillDTO> queryBillsByPeriod(String period, Long userId);
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package cn.nbmly.ai.service;
 import cn.nbmly.ai.dto.AiChatRequest;
 import cn.nbmly.ai.dto.AiChatResponse;
 
+import java.util.Map;
+
 public interface AiChatService {
 
     /**
@@ -14,4 +16,9 @@ public interface AiChatService {
      * 处理流式对话
      */
     String processStreamChat(String message, Long userId);
+
+    /**
+     * 本地意图路由的命中率与耗时统计
+     */
+    Map<String, Object> getRoutingStats();
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package cn.nbmly.ai.service;
+
+import cn.nbmly.ai.entity.Bill;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 按用户在内存中维护以纪元日为下标、收入支出分开的前缀和索引，供日期滑块等高频区间求和使用
+ */
+public interface BillRangeSumService {
+
+    /**
+     * [startDay, endDay) 内的收入与支出合计，下标 0 为收入，1 为支出
+     */
+    BigDecimal[] sumRange(Long userId, LocalDate startDay, LocalDate endDay);
+
+    /**
+     * 新增账单，处于事务中时在提交后生效
+     */
+    void onBillAdded(Bill bill);
+
+    /**
+     * 删除账单，处于事务中时在提交后生效
+     */
+    void onBillRemoved(Bill bill);
+
+    /**
+     * 批量写入后丢弃用户的索引，下次查询时重建
+     */
+    void invalidate(Long userId);
+}
@@ -0,0 +1,52 @@
+package cn.nbmly.ai.service;
+
+import cn.nbmly.ai.entity.Bill;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * 维护账单日汇总表 bill_daily_rollup 及金额分布草图 bill_amount_histogram，需在账单写操作的同一事务内调用
+ */
+public interface BillRollupService {
+
+    /**
+     * 新增账单后累加对应日汇总
+     */
+    void onBillAdded(Bill bill);
+
+    /**
+     * 删除账单后扣减对应日汇总，必要时重算最大值
+     */
+    void onBillRemoved(Bill bill);
+
+    /**
+     * 批量新增账单后按 (日期, 分类, 类型) 合并累加
+     */
+    void onBillsAdded(Collection<Bill> bills);
+
+    /**
+     * 批量删除账单后按 (日期, 分类, 类型) 合并扣减，必要时重算最大值
+     */
+    void onBillsRemoved(Collection<Bill> bills);
+
+    /**
+     * 删除用户某分类的全部日汇总
+     */
+    void onCategoryBillsRemoved(Long userId, Long categoryId);
+
+    /**
+     * 按账单表重建用户在 [startTime, endTime) 所覆盖日期内的日汇总
+     */
+    void rebuildUserRange(Long userId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 按账单表重建单个用户的全部日汇总
+     */
+    void rebuildUser(Long userId);
+
+    /**
+     * 分批重建所有用户的日汇总，每个用户一个事务，返回处理的用户数
+     */
+    int rebuildAll();
+}
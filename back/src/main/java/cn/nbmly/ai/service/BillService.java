@@ -1,18 +1,65 @@
 package cn.nbmly.ai.service;
 
 import cn.nbmly.ai.dto.BillDTO;
+import cn.nbmly.ai.dto.BillImportResultDTO;
+import cn.nbmly.ai.dto.BillPageDTO;
 import cn.nbmly.ai.dto.BillRequest;
+import cn.nbmly.ai.dto.BillSyncDTO;
+import cn.nbmly.ai.query.BillQuery;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface BillService {
     BillDTO createBill(BillRequest billRequest, Long userId);
 
+    /**
+     * 批量导入账单，逐行校验后按块写入，返回每行的错误信息
+     */
+    BillImportResultDTO importBills(List<BillRequest> billRequests, Long userId);
+
     BillDTO getBillById(Long id, Long userId);
 
     List<BillDTO> getBillsByUser(Long userId);
 
+    List<BillDTO> getBillsByUserAndTimeRange(Long userId, LocalDateTime startTime, LocalDateTime endTime);
+
+    /**
+     * 按账单ID批量读取，只返回属于该用户的账单，按账单时间倒序
+     */
+    List<BillDTO> getBillsByIds(Collection<Long> ids, Long userId);
+
+    /**
+     * 按编译后的查询条件在数据库中过滤，按账单时间倒序，设置了条数时只取前若干条
+     */
+    List<BillDTO> searchBills(Long userId, BillQuery query);
+
+    BillPageDTO getBillPage(Long userId, String cursor, int size);
+
+    /**
+     * 增量同步：返回游标之后新增或修改的账单及删除的账单ID，cursor 为空时从头开始
+     */
+    BillSyncDTO syncBills(Long userId, String cursor, int size);
+
+    /**
+     * 以游标方式逐行读取用户的全部账单并写出，format 为 csv 或 json（每行一个 JSON 对象）
+     */
+    void exportBills(Long userId, String format, OutputStream outputStream) throws IOException;
+
     BillDTO updateBill(Long id, BillRequest billRequest, Long userId);
 
     void deleteBill(Long id, Long userId);
+
+    /**
+     * 删除用户某分类下的全部账单，dryRun 为 true 时只返回将被删除的数量
+     */
+    int deleteBillsByCategory(Long categoryId, Long userId, boolean dryRun);
+
+    /**
+     * 按账单ID批量删除，只会删除属于该用户的账单，dryRun 为 true 时只返回将被删除的数量
+     */
+    int deleteBillsByIds(Collection<Long> ids, Long userId, boolean dryRun);
 }
\ No newline at end of file
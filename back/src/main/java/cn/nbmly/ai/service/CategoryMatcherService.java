@@ -0,0 +1,26 @@
+package cn.nbmly.ai.service;
+
+import cn.nbmly.ai.dto.CategoryDTO;
+
+import java.util.List;
+
+/**
+ * 按用户缓存分类名称（含同义词）的 Aho-Corasick 自动机，一次扫描找出文本中提到的分类，分类写入后重建
+ */
+public interface CategoryMatcherService {
+
+    /**
+     * 文本中依次提到的所有分类，重叠时取最长的名称；同一分类可能出现多次
+     */
+    List<CategoryDTO> findAll(Long userId, String text);
+
+    /**
+     * 文本中名称最长的一个分类，type 为 null 时不限收支类型，没有时返回 null
+     */
+    CategoryDTO findLongest(Long userId, String text, String type);
+
+    /**
+     * 分类写入后丢弃用户的自动机，处于事务中时在提交后生效
+     */
+    void invalidate(Long userId);
+}
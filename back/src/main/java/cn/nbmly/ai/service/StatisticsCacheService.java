@@ -0,0 +1,32 @@
+package cn.nbmly.ai.service;
+
+import cn.nbmly.ai.dto.StatisticsDTO;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 按用户缓存统计结果，缓存键包含用户数据版本号，账单或分类写入后版本号递增即视为失效
+ */
+public interface StatisticsCacheService {
+
+    /**
+     * 读取缓存，未命中时调用 loader 计算并写入
+     */
+    StatisticsDTO get(Long userId, String key, Supplier<StatisticsDTO> loader);
+
+    /**
+     * 递增用户数据版本号；处于事务中时在提交后生效，避免并发读取把旧数据缓存到新版本下
+     */
+    void bumpVersion(Long userId);
+
+    /**
+     * 用户数据版本标签，供 ETag 使用；账单或分类写入后变化
+     */
+    String getVersionTag(Long userId);
+
+    /**
+     * 命中率等缓存指标
+     */
+    Map<String, Object> getStats();
+}
@@ -1,9 +1,12 @@
 package cn.nbmly.ai.service;
 
 import cn.nbmly.ai.dto.StatisticsDTO;
+import cn.nbmly.ai.dto.StatisticsGranularity;
+import cn.nbmly.ai.dto.StatisticsSection;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 public interface StatisticsService {
 
@@ -13,7 +16,8 @@ public interface StatisticsService {
     StatisticsDTO getTotalStatistics(Long userId);
 
     /**
-     * 获取用户按时间段的统计（周、月、年）
+     * 获取用户按时间段的统计：不指定时间时为近一周、一月、一年；
+     * 指定 [startTime, endTime) 时返回该区间内的收支合计、最大值和平均值
      */
     StatisticsDTO getTimeBasedStatistics(Long userId, LocalDateTime startTime, LocalDateTime endTime);
 
@@ -28,12 +32,30 @@ public interface StatisticsService {
     StatisticsDTO getMonthlyStatistics(Long userId);
 
     /**
-     * 获取用户的Top类别统计
+     * 获取用户收入、支出各自金额最高的 limit 个类别及其余类别合计，可选限定 [startTime, endTime)
      */
-    StatisticsDTO getTopCategoryStatistics(Long userId);
+    StatisticsDTO getTopCategoryStatistics(Long userId, int limit, LocalDateTime startTime, LocalDateTime endTime);
 
     /**
      * 获取用户按日期（日）统计
      */
     StatisticsDTO getDailyStatistics(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * 一次遍历日汇总计算所需的多个统计板块，未请求的板块保持为空
+     */
+    StatisticsDTO getStatistics(Long userId, Set<StatisticsSection> sections);
+
+    /**
+     * 金额分布：中位数、p90、p99 及直方图，categoryId 为空时统计全部分类，可选限定 [startTime, endTime)。
+     * 结果为近似值，精度见 AmountSketch
+     */
+    StatisticsDTO getDistributionStatistics(Long userId, String type, Long categoryId, LocalDateTime startTime,
+            LocalDateTime endTime);
+
+    /**
+     * 按指定粒度分桶统计收支，可选限定 [startTime, endTime)
+     */
+    StatisticsDTO getBucketStatistics(Long userId, StatisticsGranularity granularity, LocalDateTime startTime,
+            LocalDateTime endTime);
+}
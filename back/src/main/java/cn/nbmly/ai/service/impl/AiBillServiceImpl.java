@@ -1,15 +1,23 @@
 package cn.nbmly.ai.service.impl;
 
+import cn.nbmly.ai.analytics.BillAnalyticsStore;
+import cn.nbmly.ai.analytics.BillFilter;
+import cn.nbmly.ai.analytics.BillTotals;
 import cn.nbmly.ai.dto.BillDTO;
 import cn.nbmly.ai.dto.BillRequest;
 import cn.nbmly.ai.dto.CategoryDTO;
 import cn.nbmly.ai.entity.Bill;
 import cn.nbmly.ai.entity.Category;
+import cn.nbmly.ai.query.BillQuery;
+import cn.nbmly.ai.query.BillQueryCompiler;
 import cn.nbmly.ai.repository.BillRepository;
 import cn.nbmly.ai.repository.CategoryRepository;
 import cn.nbmly.ai.service.AiBillService;
 import cn.nbmly.ai.service.BillService;
+import cn.nbmly.ai.service.CategoryMatcherService;
 import cn.nbmly.ai.service.CategoryService;
+import cn.nbmly.ai.util.BillDescriptionLexer;
+import cn.nbmly.ai.util.DateRangeParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,11 +25,8 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,8 +36,11 @@ public class AiBillServiceImpl implements AiBillService {
 
     private final BillService billService;
     private final CategoryService categoryService;
+    private final CategoryMatcherService categoryMatcherService;
     private final BillRepository billRepository;
     private final CategoryRepository categoryRepository;
+    private final BillAnalyticsStore billAnalyticsStore;
+    private final BillQueryCompiler billQueryCompiler;
 
     @Override
     public BillDTO createBill(String description, Long userId) {
@@ -47,20 +55,13 @@ public class AiBillServiceImpl implements AiBillService {
             return billService.getBillsByUser(userId);
         }
         
-        if (query.contains("所有") || query.contains("全部")) {
-            return billService.getBillsByUser(userId);
-        }
-
         // 处理统计查询
-        if (isStatisticsQuery(query)) {
-            return handleStatisticsQuery(query, userId);
+        if (!query.contains("所有") && !query.contains("全部") && isStatisticsQuery(query)) {
+            return handleStatisticsQuery(query, DateRangeParser.parse(query, LocalDate.now()), userId);
         }
 
-        // 根据关键词过滤账单
-        List<BillDTO> allBills = billService.getBillsByUser(userId);
-        return allBills.stream()
-                .filter(bill -> matchesQuery(bill, query))
-                .collect(Collectors.toList());
+        // 查询只编译一次，类型、分类、金额、时间和条数都在数据库中过滤
+        return billService.searchBills(userId, billQueryCompiler.compile(query, userId));
     }
 
     @Override
@@ -81,26 +82,38 @@ public class AiBillServiceImpl implements AiBillService {
 
     @Override
     public String getBillStatistics(Long userId) {
-        List<BillDTO> bills = billService.getBillsByUser(userId);
+        return getBillStatistics(userId, null);
+    }
 
-        BigDecimal totalIncome = bills.stream()
-                .filter(bill -> "income".equals(bill.getType()))
-                .map(BillDTO::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Override
+    public String getBillStatistics(Long userId, String period) {
+        BillTotals totals = getBillTotals(userId, null, period);
+        BigDecimal balance = totals.getIncome().subtract(totals.getExpense());
 
-        BigDecimal totalExpense = bills.stream()
-                .filter(bill -> "expense".equals(bill.getType()))
-                .map(BillDTO::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        String title = isBlank(period) ? "账单统计" : period.trim() + "账单统计";
+        return String.format("%s：\n总收入：%.2f元\n总支出：%.2f元\n余额：%.2f元\n账单总数：%d条",
+                title, totals.getIncome(), totals.getExpense(), balance, totals.getCount());
+    }
 
-        BigDecimal balance = totalIncome.subtract(totalExpense);
+    @Override
+    public BillTotals getBillTotals(Long userId, String type) {
+        return getBillTotals(userId, type, null);
+    }
 
-        return String.format("账单统计：\n总收入：%.2f元\n总支出：%.2f元\n余额：%.2f元\n账单总数：%d条",
-                totalIncome, totalExpense, balance, bills.size());
+    @Override
+    public BillTotals getBillTotals(Long userId, String type, String period) {
+        BillFilter filter = new BillFilter();
+        filter.setType(type);
+        if (!isBlank(period)) {
+            DateRangeParser.Range range = requireRange(period);
+            filter.setStartDay(range.getStart());
+            filter.setEndDay(range.getEnd());
+        }
+        return billAnalyticsStore.sum(userId, filter);
     }
 
     @Override
-    public List<BillDTO> deleteBillsByCategory(String categoryName, Long userId) {
+    public int deleteBillsByCategory(String categoryName, Long userId, boolean dryRun) {
         // 先找到该分类
         List<CategoryDTO> categories = categoryService.getCategoriesByUser(userId);
         CategoryDTO targetCategory = categories.stream()
@@ -108,17 +121,24 @@ public class AiBillServiceImpl implements AiBillService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("未找到分类：" + categoryName));
 
-        // 获取该分类的所有账单
-        List<BillDTO> billsToDelete = billService.getBillsByUser(userId).stream()
-                .filter(bill -> targetCategory.getId().equals(bill.getCategoryId()))
-                .collect(Collectors.toList());
+        // 单条语句删除该分类下的所有账单
+        return billService.deleteBillsByCategory(targetCategory.getId(), userId, dryRun);
+    }
 
-        // 删除所有相关账单
-        for (BillDTO bill : billsToDelete) {
-            billService.deleteBill(bill.getId(), userId);
+    @Override
+    public int batchDeleteBills(String condition, Long userId, boolean dryRun) {
+        // 条件编译后不限定任何账单时，只有明确说了所有/全部才允许删除
+        BillQuery query = billQueryCompiler.compile(condition, userId);
+        if (!query.hasFilter() && !isDeleteAll(condition)) {
+            throw new RuntimeException("删除条件未限定任何账单，如需删除全部账单请在条件中写明全部");
         }
-
-        return billsToDelete;
+        List<Long> billIds = billService.searchBills(userId, query).stream()
+                .map(BillDTO::getId)
+                .collect(Collectors.toList());
+        if (billIds.isEmpty()) {
+            return 0;
+        }
+        return billService.deleteBillsByIds(billIds, userId, dryRun);
     }
 
     @Override
@@ -130,270 +150,135 @@ public class AiBillServiceImpl implements AiBillService {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("未找到分类：" + categoryName));
 
-        // 获取该分类的所有账单
-        return billService.getBillsByUser(userId).stream()
-                .filter(bill -> targetCategory.getId().equals(bill.getCategoryId()))
-                .collect(Collectors.toList());
+        // 先在列存中筛出该分类的账单ID，再按ID读取
+        BillFilter filter = new BillFilter();
+        filter.setCategoryId(targetCategory.getId());
+        return billService.getBillsByIds(billAnalyticsStore.findIds(userId, filter), userId);
     }
 
     @Override
     public List<BillDTO> queryBillsByTimeRange(String startDate, String endDate, Long userId) {
         LocalDateTime start = LocalDate.parse(startDate).atStartOfDay();
-        LocalDateTime end = LocalDate.parse(endDate).atTime(23, 59, 59);
-        return billService.getBillsByUser(userId).stream()
-            .filter(bill -> {
-                LocalDateTime billTime = bill.getBillTime();
-                return !billTime.isBefore(start) && !billTime.isAfter(end);
-            })
-            .collect(Collectors.toList());
+        LocalDateTime end = LocalDate.parse(endDate).plusDays(1).atStartOfDay();
+        return billService.getBillsByUserAndTimeRange(userId, start, end);
+    }
+
+    @Override
+    public List<BillDTO> queryBillsByAmountRange(BigDecimal minAmount, BigDecimal maxAmount, Long userId) {
+        BillQuery query = new BillQuery();
+        query.setMinAmount(minAmount);
+        query.setMinInclusive(true);
+        query.setMaxAmount(maxAmount);
+        query.setMaxInclusive(true);
+        return billService.searchBills(userId, query);
+    }
+
+    @Override
+    public List<BillDTO> queryBillsByPeriod(String period, Long userId) {
+        DateRangeParser.Range range = requireRange(period);
+        return billService.getBillsByUserAndTimeRange(userId, range.getStartTime(), range.getEndTime());
+    }
+
+    private DateRangeParser.Range requireRange(String period) {
+        DateRangeParser.Range range = DateRangeParser.parse(period, LocalDate.now());
+        if (range == null) {
+            throw new RuntimeException("无法识别的时间范围：" + period + "，例如：上个月、最近7天、3月5日到3月10日");
+        }
+        return range;
+    }
+
+    private boolean isDeleteAll(String condition) {
+        return condition != null && (condition.contains("所有") || condition.contains("全部"));
+    }
+
+    private boolean isBlank(String text) {
+        return text == null || text.trim().isEmpty();
     }
 
     private BillRequest parseBillDescription(String description, Long userId) {
+        // 单遍扫描描述，金额、收支类型、时间和备注一次得到
+        BillDescriptionLexer.Result tokens = BillDescriptionLexer.lex(description);
         BillRequest billRequest = new BillRequest();
+        billRequest.setAmount(requireAmount(tokens));
 
-        // 解析金额
-        BigDecimal amount = extractAmount(description);
-        billRequest.setAmount(amount);
-
-        // 解析类型（收入/支出）
-        String type = extractType(description);
+        String type = tokens.isIncome() ? "income" : "expense"; // 默认为支出
         billRequest.setType(type);
 
         // 解析分类
         Long categoryId = extractCategory(description, userId, type);
         billRequest.setCategoryId(categoryId);
 
-        // 解析备注
-        String remarks = extractRemarks(description);
-        billRequest.setRemarks(remarks);
-
-        // 解析时间
-        LocalDateTime billTime = extractTime(description);
-        billRequest.setBillTime(billTime);
-
+        billRequest.setRemarks(tokens.getRemarks());
+        billRequest.setBillTime(resolveTime(tokens));
         return billRequest;
     }
 
-    private BigDecimal extractAmount(String description) {
-        // 匹配金额模式：数字+元/块/块钱
-        Pattern pattern = Pattern.compile("(\\d+(\\.\\d+)?)\\s*(元|块|块钱|RMB|¥)");
-        Matcher matcher = pattern.matcher(description);
-        if (matcher.find()) {
-            return new BigDecimal(matcher.group(1));
-        }
-
-        // 匹配纯数字
-        pattern = Pattern.compile("(\\d+(\\.\\d+)?)");
-        matcher = pattern.matcher(description);
-        if (matcher.find()) {
-            return new BigDecimal(matcher.group(1));
+    private BigDecimal requireAmount(BillDescriptionLexer.Result tokens) {
+        if (tokens.getAmount() == null) {
+            throw new RuntimeException("无法解析金额，请明确指定金额，例如：100元");
         }
-
-        throw new RuntimeException("无法解析金额，请明确指定金额，例如：100元");
-    }
-
-    private String extractType(String description) {
-        if (description.contains("收入") || description.contains("赚") || description.contains("工资") ||
-                description.contains("奖金") || description.contains("投资") || description.contains("理财")) {
-            return "income";
-        }
-        return "expense"; // 默认为支出
+        return tokens.getAmount();
     }
 
     private Long extractCategory(String description, Long userId, String type) {
-        List<CategoryDTO> categories = categoryService.getCategoriesByUser(userId);
-        Map<String, Long> categoryMap = categories.stream()
-                .filter(cat -> cat.getType().equals(type))
-                .collect(Collectors.toMap(CategoryDTO::getName, CategoryDTO::getId));
-
-        // 根据描述匹配分类
-        for (Map.Entry<String, Long> entry : categoryMap.entrySet()) {
-            if (description.contains(entry.getKey())) {
-                return entry.getValue();
-            }
+        // 根据描述匹配分类，多个分类同时出现时取名称最长的
+        CategoryDTO matched = categoryMatcherService.findLongest(userId, description, type);
+        if (matched != null) {
+            return matched.getId();
         }
 
         // 如果没有匹配到，返回第一个默认分类
-        return categories.stream()
+        return categoryService.getCategoriesByUser(userId).stream()
                 .filter(cat -> cat.getType().equals(type))
                 .findFirst()
                 .map(CategoryDTO::getId)
                 .orElseThrow(() -> new RuntimeException("未找到合适的分类，请先创建分类"));
     }
 
-    private String extractRemarks(String description) {
-        // 提取备注信息，去除金额、分类等关键词
-        String remarks = description;
-
-        // 移除金额
-        remarks = remarks.replaceAll("\\d+(\\.\\d+)?\\s*(元|块|块钱|RMB|¥)", "");
-
-        // 移除时间关键词
-        remarks = remarks.replaceAll("今天|昨天|前天", "");
-
-        // 移除常见关键词
-        String[] keywords = { "收入", "支出", "消费", "购买", "支付", "转账", "工资", "奖金", "投资", "理财", "花了", "赚了" };
-        for (String keyword : keywords) {
-            remarks = remarks.replace(keyword, "");
+    private LocalDateTime resolveTime(BillDescriptionLexer.Result tokens) {
+        // 今天/昨天/前天优先于具体日期，都没有时为当前时间
+        if (tokens.getDaysAgo() >= 0) {
+            return LocalDateTime.now().minusDays(tokens.getDaysAgo());
         }
-
-        // 清理多余空格
-        remarks = remarks.replaceAll("\\s+", " ").trim();
-
-        // 如果备注为空或太短，生成默认备注
-        if (remarks.isEmpty() || remarks.length() < 2) {
-            if (description.contains("买")) {
-                // 提取购买的商品
-                Pattern buyPattern = Pattern.compile("买(\\w+)");
-                Matcher buyMatcher = buyPattern.matcher(description);
-                if (buyMatcher.find()) {
-                    return "购买" + buyMatcher.group(1);
-                }
-                return "购物消费";
-            } else if (description.contains("工资")) {
-                return "工资收入";
-            } else if (description.contains("吃饭") || description.contains("午餐") || description.contains("晚餐")) {
-                return "餐饮消费";
-            } else if (description.contains("打车") || description.contains("交通")) {
-                return "交通费用";
-            } else {
-                return "日常消费";
-            }
+        if (tokens.getDate() != null) {
+            return tokens.getDate().atStartOfDay();
         }
-
-        return remarks;
-    }
-
-    private LocalDateTime extractTime(String description) {
-        // 解析时间，支持多种格式
-        if (description.contains("今天")) {
-            return LocalDateTime.now();
-        } else if (description.contains("昨天")) {
-            return LocalDateTime.now().minusDays(1);
-        } else if (description.contains("前天")) {
-            return LocalDateTime.now().minusDays(2);
-        }
-
-        // 尝试解析具体日期
-        Pattern pattern = Pattern.compile("(\\d{4})年(\\d{1,2})月(\\d{1,2})日");
-        Matcher matcher = pattern.matcher(description);
-        if (matcher.find()) {
-            int year = Integer.parseInt(matcher.group(1));
-            int month = Integer.parseInt(matcher.group(2));
-            int day = Integer.parseInt(matcher.group(3));
-            return LocalDateTime.of(year, month, day, 0, 0);
-        }
-
-        // 默认为当前时间
         return LocalDateTime.now();
     }
 
-    private boolean matchesQuery(BillDTO bill, String query) {
-        String lowerQuery = query.toLowerCase();
-
-        // 按类型过滤
-        if (lowerQuery.contains("收入") && !"income".equals(bill.getType())) {
-            return false;
-        }
-        if (lowerQuery.contains("支出") && !"expense".equals(bill.getType())) {
-            return false;
-        }
-
-        // 按分类过滤
-        if (bill.getCategoryName() != null && lowerQuery.contains(bill.getCategoryName().toLowerCase())) {
-            return true;
-        }
-
-        // 按备注过滤
-        if (bill.getRemarks() != null && bill.getRemarks().toLowerCase().contains(lowerQuery)) {
-            return true;
-        }
-
-        // 按金额过滤
-        if (lowerQuery.contains("大于") || lowerQuery.contains("超过")) {
-            BigDecimal amount = extractAmount(query);
-            return bill.getAmount().compareTo(amount) > 0;
-        }
-        if (lowerQuery.contains("小于") || lowerQuery.contains("低于")) {
-            BigDecimal amount = extractAmount(query);
-            return bill.getAmount().compareTo(amount) < 0;
-        }
-
-        return false;
-    }
-
     private boolean isStatisticsQuery(String query) {
         return query.contains("多少") || query.contains("花了") || query.contains("收入了") ||
                 query.contains("支出") || query.contains("收入");
     }
 
-    private List<BillDTO> handleStatisticsQuery(String query, Long userId) {
-        List<BillDTO> allBills = billService.getBillsByUser(userId);
-
-        // 处理时间过滤
-        if (query.contains("今天")) {
-            final LocalDateTime startTime = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0).withNano(0);
-            final LocalDateTime endTime = LocalDateTime.now().withHour(23).withMinute(59).withSecond(59)
-                    .withNano(999999999);
-            allBills = allBills.stream()
-                    .filter(bill -> {
-                        LocalDateTime billTime = LocalDateTime
-                                .parse(bill.getBillTime().toString().replace("T", " ").substring(0, 19));
-                        return !billTime.isBefore(startTime) && !billTime.isAfter(endTime);
-                    })
-                    .collect(Collectors.toList());
-        } else if (query.contains("昨天")) {
-            final LocalDateTime startTime = LocalDateTime.now().minusDays(1).withHour(0).withMinute(0).withSecond(0)
-                    .withNano(0);
-            final LocalDateTime endTime = LocalDateTime.now().minusDays(1).withHour(23).withMinute(59).withSecond(59)
-                    .withNano(999999999);
-            allBills = allBills.stream()
-                    .filter(bill -> {
-                        LocalDateTime billTime = LocalDateTime
-                                .parse(bill.getBillTime().toString().replace("T", " ").substring(0, 19));
-                        return !billTime.isBefore(startTime) && !billTime.isAfter(endTime);
-                    })
-                    .collect(Collectors.toList());
-        } else if (query.contains("前天")) {
-            final LocalDateTime startTime = LocalDateTime.now().minusDays(2).withHour(0).withMinute(0).withSecond(0)
-                    .withNano(0);
-            final LocalDateTime endTime = LocalDateTime.now().minusDays(2).withHour(23).withMinute(59).withSecond(59)
-                    .withNano(999999999);
-            allBills = allBills.stream()
-                    .filter(bill -> {
-                        LocalDateTime billTime = LocalDateTime
-                                .parse(bill.getBillTime().toString().replace("T", " ").substring(0, 19));
-                        return !billTime.isBefore(startTime) && !billTime.isAfter(endTime);
-                    })
-                    .collect(Collectors.toList());
+    private List<BillDTO> handleStatisticsQuery(String query, DateRangeParser.Range range, Long userId) {
+        // 处理时间过滤：命中时间表达时只统计该范围
+        BillFilter filter = new BillFilter();
+        if (range != null) {
+            filter.setStartDay(range.getStart());
+            filter.setEndDay(range.getEnd());
         }
 
-        // 如果查询包含"花了多少钱"，返回所有支出
-        if (query.contains("花了") || query.contains("支出")) {
-            allBills = allBills.stream()
-                    .filter(bill -> "expense".equals(bill.getType()))
-                    .collect(Collectors.toList());
+        // 如果查询包含"花了多少钱"，返回所有支出；包含"收入多少"，返回所有收入
+        boolean expense = query.contains("花了") || query.contains("支出");
+        boolean income = query.contains("收入了") || query.contains("收入");
+        if (expense && income) {
+            return new ArrayList<>();
         }
-
-        // 如果查询包含"收入多少"，返回所有收入
-        if (query.contains("收入了") || query.contains("收入")) {
-            allBills = allBills.stream()
-                    .filter(bill -> "income".equals(bill.getType()))
-                    .collect(Collectors.toList());
+        if (expense) {
+            filter.setType("expense");
+        } else if (income) {
+            filter.setType("income");
         }
 
         // 如果查询包含分类关键词，按分类过滤
-        List<CategoryDTO> categories = categoryService.getCategoriesByUser(userId);
-        for (CategoryDTO category : categories) {
-            if (query.contains(category.getName())) {
-                final Long categoryId = category.getId();
-                allBills = allBills.stream()
-                        .filter(bill -> categoryId.equals(bill.getCategoryId()))
-                        .collect(Collectors.toList());
-                break; // 找到第一个匹配的分类就停止
-            }
+        CategoryDTO category = categoryMatcherService.findLongest(userId, query, filter.getType());
+        if (category != null) {
+            filter.setCategoryId(category.getId());
         }
 
+        List<BillDTO> allBills = billService.getBillsByIds(billAnalyticsStore.findIds(userId, filter), userId);
+
         // 特殊处理餐饮相关查询
         if (query.contains("吃饭") || query.contains("餐饮") || query.contains("午餐") || query.contains("晚餐")) {
             allBills = allBills.stream()
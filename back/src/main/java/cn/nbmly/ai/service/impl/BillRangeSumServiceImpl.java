@@ -0,0 +1,158 @@
+package cn.nbmly.ai.service.impl;
+
+import cn.nbmly.ai.entity.Bill;
+import cn.nbmly.ai.service.BillRangeSumService;
+import cn.nbmly.ai.util.AmountCents;
+import cn.nbmly.ai.util.FenwickTree;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个用户一对树状数组（收入、支出），以分为单位存放每天的金额，按日汇总表重建。
+ * 单笔写入在事务提交后增量更新，批量写入或超出已分配日期范围时整体失效
+ */
+@Slf4j
+@Service
+public class BillRangeSumServiceImpl implements BillRangeSumService {
+
+    private static final int FUTURE_MARGIN_DAYS = 366; // 为未来日期的账单预留的天数
+    private static final String LOAD_SQL = "SELECT bill_day, type, SUM(total_cents) AS total "
+            + "FROM bill_daily_rollup WHERE user_id = ? GROUP BY bill_day, type";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<Long, UserIndex> indexes;
+
+    public BillRangeSumServiceImpl(JdbcTemplate jdbcTemplate,
+            @Value("${bookkeeping.range-sum.maximum-users:1000}") long maximumUsers,
+            @Value("${bookkeeping.range-sum.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indexes = Caffeine.newBuilder()
+                .maximumSize(maximumUsers)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    @Override
+    public BigDecimal[] sumRange(Long userId, LocalDate startDay, LocalDate endDay) {
+        UserIndex index = indexes.get(userId, this::load);
+        long[] cents = index.sum(startDay.toEpochDay(), endDay.toEpochDay());
+        return new BigDecimal[] { BigDecimal.valueOf(cents[0], 2), BigDecimal.valueOf(cents[1], 2) };
+    }
+
+    @Override
+    public void onBillAdded(Bill bill) {
+        UserIndex index = indexes.getIfPresent(bill.getUserId());
+        afterCommit(() -> apply(bill, 1, index));
+    }
+
+    @Override
+    public void onBillRemoved(Bill bill) {
+        UserIndex index = indexes.getIfPresent(bill.getUserId());
+        afterCommit(() -> apply(bill, -1, index));
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        afterCommit(() -> indexes.invalidate(userId));
+    }
+
+    /**
+     * 只有提交时缓存中仍是写入前就已加载的同一份索引才增量更新：写入前加载的索引不含本次改动，
+     * 而提交前后新加载的索引可能已包含本次改动，此时与索引缺失、日期越界一样直接失效，
+     * invalidate 会等待进行中的加载结束后再移除
+     */
+    private void apply(Bill bill, int sign, UserIndex loadedBeforeWrite) {
+        UserIndex index = indexes.getIfPresent(bill.getUserId());
+        long cents = AmountCents.of(bill.getAmount()) * sign;
+        if (index == null || index != loadedBeforeWrite || !index.add(bill.getBillTime().toLocalDate().toEpochDay(),
+                "income".equals(bill.getType()), cents)) {
+            indexes.invalidate(bill.getUserId());
+        }
+    }
+
+    private UserIndex load(Long userId) {
+        long start = System.currentTimeMillis();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOAD_SQL, userId);
+        long today = LocalDate.now().toEpochDay();
+        long firstDay = today;
+        long lastDay = today;
+        long[] days = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            days[i] = toLocalDate(rows.get(i).get("bill_day")).toEpochDay();
+            firstDay = Math.min(firstDay, days[i]);
+            lastDay = Math.max(lastDay, days[i]);
+        }
+        int size = Math.toIntExact(lastDay - firstDay + 1 + FUTURE_MARGIN_DAYS);
+        long[] income = new long[size];
+        long[] expense = new long[size];
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> row = rows.get(i);
+            long cents = ((Number) row.get("total")).longValue();
+            int offset = (int) (days[i] - firstDay);
+            if ("income".equals(row.get("type"))) {
+                income[offset] = AmountCents.add(income[offset], cents);
+            } else {
+                expense[offset] = AmountCents.add(expense[offset], cents);
+            }
+        }
+        log.debug("用户{}前缀和索引已重建：{}天，耗时{}ms", userId, size, System.currentTimeMillis() - start);
+        return new UserIndex(firstDay, FenwickTree.of(income), FenwickTree.of(expense));
+    }
+
+    private LocalDate toLocalDate(Object value) {
+        return value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate() : (LocalDate) value;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class UserIndex {
+
+        private final long firstDay;
+        private final FenwickTree income;
+        private final FenwickTree expense;
+
+        UserIndex(long firstDay, FenwickTree income, FenwickTree expense) {
+            this.firstDay = firstDay;
+            this.income = income;
+            this.expense = expense;
+        }
+
+        synchronized boolean add(long epochDay, boolean isIncome, long cents) {
+            long offset = epochDay - firstDay;
+            if (offset < 0 || offset >= income.size()) {
+                return false;
+            }
+            (isIncome ? income : expense).add((int) offset, cents);
+            return true;
+        }
+
+        synchronized long[] sum(long startDay, long endDay) {
+            int from = (int) Math.max(0, Math.min(startDay - firstDay, income.size()));
+            int to = (int) Math.max(0, Math.min(endDay - firstDay, income.size()));
+            return new long[] { income.rangeSum(from, to), expense.rangeSum(from, to) };
+        }
+    }
+}
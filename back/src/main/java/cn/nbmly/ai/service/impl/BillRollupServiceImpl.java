@@ -0,0 +1,265 @@
+package cn.nbmly.ai.service.impl;
+
+import cn.nbmly.ai.entity.Bill;
+import cn.nbmly.ai.service.BillRollupService;
+import cn.nbmly.ai.util.AmountCents;
+import cn.nbmly.ai.util.AmountSketch;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BillRollupServiceImpl implements BillRollupService {
+
+    private static final int REBUILD_USER_CHUNK_SIZE = 100;
+
+    private static final String UPSERT_SQL = "INSERT INTO bill_daily_rollup "
+            + "(user_id, bill_day, category_id, type, total_cents, bill_count, max_amount) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE total_cents = total_cents + VALUES(total_cents), "
+            + "bill_count = bill_count + VALUES(bill_count), max_amount = GREATEST(max_amount, VALUES(max_amount))";
+
+    private static final String SUBTRACT_SQL = "UPDATE bill_daily_rollup "
+            + "SET total_cents = total_cents - ?, bill_count = bill_count - ? "
+            + "WHERE user_id = ? AND bill_day = ? AND category_id = ? AND type = ?";
+
+    // 只有被删除的金额不小于当前最大值时才需要回查账单表
+    private static final String REFRESH_MAX_SQL = "UPDATE bill_daily_rollup SET max_amount = COALESCE("
+            + "(SELECT MAX(b.amount) FROM bill b WHERE b.user_id = ? AND b.category_id = ? AND b.type = ? "
+            + "AND b.bill_time >= ? AND b.bill_time < ? AND b.deleted_at IS NULL), 0) "
+            + "WHERE user_id = ? AND bill_day = ? AND category_id = ? AND type = ? AND max_amount <= ?";
+
+    private static final String DELETE_EMPTY_SQL = "DELETE FROM bill_daily_rollup "
+            + "WHERE user_id = ? AND bill_day = ? AND category_id = ? AND type = ? AND bill_count <= 0";
+
+    private static final String INSERT_FROM_BILL_SQL = "INSERT INTO bill_daily_rollup "
+            + "(user_id, bill_day, category_id, type, total_cents, bill_count, max_amount) "
+            + "SELECT user_id, DATE(bill_time), category_id, type, SUM(amount_cents), COUNT(*), "
+            + "MAX(amount) FROM bill WHERE deleted_at IS NULL ";
+
+    private static final String GROUP_BY_DAY = " GROUP BY user_id, DATE(bill_time), category_id, type";
+
+    private static final String HISTOGRAM_UPSERT_SQL = "INSERT INTO bill_amount_histogram "
+            + "(user_id, bill_day, category_id, type, bucket, bill_count) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE bill_count = bill_count + VALUES(bill_count)";
+
+    private static final String HISTOGRAM_DECREMENT_SQL = "UPDATE bill_amount_histogram SET bill_count = bill_count - ? "
+            + "WHERE user_id = ? AND bill_day = ? AND category_id = ? AND type = ? AND bucket = ?";
+
+    private static final String HISTOGRAM_DELETE_EMPTY_SQL = "DELETE FROM bill_amount_histogram "
+            + "WHERE user_id = ? AND bill_day = ? AND category_id = ? AND type = ? AND bucket = ? AND bill_count <= 0";
+
+    private static final String HISTOGRAM_SOURCE_SQL = "SELECT user_id, bill_time, category_id, type, amount FROM bill "
+            + "WHERE deleted_at IS NULL ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void onBillAdded(Bill bill) {
+        jdbcTemplate.update(UPSERT_SQL, bill.getUserId(), bill.getBillTime().toLocalDate(), bill.getCategoryId(),
+                bill.getType(), AmountCents.of(bill.getAmount()), 1, bill.getAmount());
+        jdbcTemplate.update(HISTOGRAM_UPSERT_SQL, bill.getUserId(), bill.getBillTime().toLocalDate(),
+                bill.getCategoryId(), bill.getType(), AmountSketch.bucketOf(bill.getAmount()), 1);
+    }
+
+    @Override
+    public void onBillRemoved(Bill bill) {
+        LocalDate day = bill.getBillTime().toLocalDate();
+        jdbcTemplate.update(SUBTRACT_SQL, AmountCents.of(bill.getAmount()), 1, bill.getUserId(), day,
+                bill.getCategoryId(), bill.getType());
+        jdbcTemplate.update(REFRESH_MAX_SQL, bill.getUserId(), bill.getCategoryId(), bill.getType(),
+                day.atStartOfDay(), day.plusDays(1).atStartOfDay(), bill.getUserId(), day, bill.getCategoryId(),
+                bill.getType(), bill.getAmount());
+        jdbcTemplate.update(DELETE_EMPTY_SQL, bill.getUserId(), day, bill.getCategoryId(), bill.getType());
+
+        int bucket = AmountSketch.bucketOf(bill.getAmount());
+        jdbcTemplate.update(HISTOGRAM_DECREMENT_SQL, 1, bill.getUserId(), day, bill.getCategoryId(),
+                bill.getType(), bucket);
+        jdbcTemplate.update(HISTOGRAM_DELETE_EMPTY_SQL, bill.getUserId(), day, bill.getCategoryId(), bill.getType(),
+                bucket);
+    }
+
+    @Override
+    public void onBillsAdded(Collection<Bill> bills) {
+        // 先在内存中按汇总键合并，一块账单只产生少量 upsert
+        Map<List<Object>, Object[]> deltas = new LinkedHashMap<>();
+        for (Bill bill : bills) {
+            List<Object> key = List.of(bill.getUserId(), bill.getBillTime().toLocalDate(), bill.getCategoryId(),
+                    bill.getType());
+            Object[] delta = deltas.get(key);
+            if (delta == null) {
+                deltas.put(key, new Object[] { key.get(0), key.get(1), key.get(2), key.get(3),
+                        AmountCents.of(bill.getAmount()), 1L, bill.getAmount() });
+            } else {
+                delta[4] = AmountCents.add((Long) delta[4], AmountCents.of(bill.getAmount()));
+                delta[5] = (Long) delta[5] + 1;
+                delta[6] = ((BigDecimal) delta[6]).max(bill.getAmount());
+            }
+        }
+        if (!deltas.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, new ArrayList<>(deltas.values()));
+        }
+
+        Map<List<Object>, long[]> histogram = new LinkedHashMap<>();
+        for (Bill bill : bills) {
+            addToHistogram(histogram, bill.getUserId(), bill.getBillTime().toLocalDate(), bill.getCategoryId(),
+                    bill.getType(), bill.getAmount());
+        }
+        upsertHistogram(histogram);
+    }
+
+    @Override
+    public void onBillsRemoved(Collection<Bill> bills) {
+        // 与批量新增一样先按汇总键合并，每个键只扣减一次；被删除的最大金额不小于当前最大值时才回查账单表
+        Map<List<Object>, Object[]> deltas = new LinkedHashMap<>();
+        for (Bill bill : bills) {
+            List<Object> key = List.of(bill.getUserId(), bill.getBillTime().toLocalDate(), bill.getCategoryId(),
+                    bill.getType());
+            Object[] delta = deltas.get(key);
+            if (delta == null) {
+                deltas.put(key, new Object[] { AmountCents.of(bill.getAmount()), 1L, bill.getAmount() });
+            } else {
+                delta[0] = AmountCents.add((Long) delta[0], AmountCents.of(bill.getAmount()));
+                delta[1] = (Long) delta[1] + 1;
+                delta[2] = ((BigDecimal) delta[2]).max(bill.getAmount());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<Object[]> subtractRows = new ArrayList<>(deltas.size());
+        List<Object[]> refreshRows = new ArrayList<>(deltas.size());
+        List<Object[]> emptyRows = new ArrayList<>(deltas.size());
+        deltas.forEach((key, delta) -> {
+            LocalDate day = (LocalDate) key.get(1);
+            subtractRows.add(new Object[] { delta[0], delta[1], key.get(0), day, key.get(2), key.get(3) });
+            refreshRows.add(new Object[] { key.get(0), key.get(2), key.get(3), day.atStartOfDay(),
+                    day.plusDays(1).atStartOfDay(), key.get(0), day, key.get(2), key.get(3), delta[2] });
+            emptyRows.add(new Object[] { key.get(0), day, key.get(2), key.get(3) });
+        });
+        jdbcTemplate.batchUpdate(SUBTRACT_SQL, subtractRows);
+        jdbcTemplate.batchUpdate(REFRESH_MAX_SQL, refreshRows);
+        jdbcTemplate.batchUpdate(DELETE_EMPTY_SQL, emptyRows);
+
+        Map<List<Object>, long[]> histogram = new LinkedHashMap<>();
+        for (Bill bill : bills) {
+            addToHistogram(histogram, bill.getUserId(), bill.getBillTime().toLocalDate(), bill.getCategoryId(),
+                    bill.getType(), bill.getAmount());
+        }
+        List<Object[]> decrementRows = new ArrayList<>(histogram.size());
+        List<Object[]> bucketRows = new ArrayList<>(histogram.size());
+        histogram.forEach((key, count) -> {
+            decrementRows.add(new Object[] { count[0], key.get(0), key.get(1), key.get(2), key.get(3), key.get(4) });
+            bucketRows.add(key.toArray());
+        });
+        jdbcTemplate.batchUpdate(HISTOGRAM_DECREMENT_SQL, decrementRows);
+        jdbcTemplate.batchUpdate(HISTOGRAM_DELETE_EMPTY_SQL, bucketRows);
+    }
+
+    @Override
+    public void onCategoryBillsRemoved(Long userId, Long categoryId) {
+        jdbcTemplate.update("DELETE FROM bill_daily_rollup WHERE user_id = ? AND category_id = ?", userId, categoryId);
+        jdbcTemplate.update("DELETE FROM bill_amount_histogram WHERE user_id = ? AND category_id = ?", userId,
+                categoryId);
+    }
+
+    @Override
+    public void rebuildUserRange(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
+        // 扩展到整天，保证重建的日汇总完整
+        LocalDate firstDay = startTime.toLocalDate();
+        LocalDate endDay = endTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? endTime.toLocalDate()
+                : endTime.toLocalDate().plusDays(1);
+        jdbcTemplate.update("DELETE FROM bill_daily_rollup WHERE user_id = ? AND bill_day >= ? AND bill_day < ?",
+                userId, firstDay, endDay);
+        jdbcTemplate.update(INSERT_FROM_BILL_SQL + "AND user_id = ? AND bill_time >= ? AND bill_time < ?"
+                + GROUP_BY_DAY, userId, firstDay.atStartOfDay(), endDay.atStartOfDay());
+
+        jdbcTemplate.update("DELETE FROM bill_amount_histogram WHERE user_id = ? AND bill_day >= ? AND bill_day < ?",
+                userId, firstDay, endDay);
+        rebuildHistogram("AND user_id = ? AND bill_time >= ? AND bill_time < ?", userId, firstDay.atStartOfDay(),
+                endDay.atStartOfDay());
+    }
+
+    @Override
+    @Transactional
+    public void rebuildUser(Long userId) {
+        jdbcTemplate.update("DELETE FROM bill_daily_rollup WHERE user_id = ?", userId);
+        jdbcTemplate.update(INSERT_FROM_BILL_SQL + "AND user_id = ?" + GROUP_BY_DAY, userId);
+
+        jdbcTemplate.update("DELETE FROM bill_amount_histogram WHERE user_id = ?", userId);
+        rebuildHistogram("AND user_id = ?", userId);
+    }
+
+    @Override
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        int users = 0;
+        long lastUserId = 0;
+        while (true) {
+            List<Long> userIds = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT user_id FROM bill WHERE user_id > ? AND deleted_at IS NULL ORDER BY user_id LIMIT ?", Long.class,
+                    lastUserId, REBUILD_USER_CHUNK_SIZE);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            for (Long userId : userIds) {
+                transactionTemplate.executeWithoutResult(status -> rebuildUser(userId));
+                users++;
+            }
+            lastUserId = userIds.get(userIds.size() - 1);
+            log.info("日汇总重建进度：已处理{}个用户", users);
+        }
+        // 清理已没有任何账单的用户残留的汇总
+        jdbcTemplate.update("DELETE FROM bill_daily_rollup WHERE user_id NOT IN "
+                + "(SELECT DISTINCT user_id FROM bill WHERE deleted_at IS NULL)");
+        jdbcTemplate.update(
+                "DELETE FROM bill_amount_histogram WHERE user_id NOT IN (SELECT DISTINCT user_id FROM bill "
+                + "WHERE deleted_at IS NULL)");
+        log.info("日汇总重建完成：共{}个用户，耗时{}ms", users, System.currentTimeMillis() - start);
+        return users;
+    }
+
+    /**
+     * 金额分布的桶号在 Java 中计算，重建时逐行读取账单后按键合并写入，保证与增量维护使用同一分桶规则
+     */
+    private void rebuildHistogram(String where, Object... args) {
+        Map<List<Object>, long[]> histogram = new LinkedHashMap<>();
+        jdbcTemplate.query(HISTOGRAM_SOURCE_SQL + where, (RowCallbackHandler) rs -> addToHistogram(histogram,
+                rs.getLong("user_id"), rs.getObject("bill_time", LocalDateTime.class).toLocalDate(),
+                rs.getLong("category_id"), rs.getString("type"), rs.getBigDecimal("amount")), args);
+        upsertHistogram(histogram);
+    }
+
+    private void addToHistogram(Map<List<Object>, long[]> histogram, Long userId, LocalDate day, Long categoryId,
+            String type, BigDecimal amount) {
+        List<Object> key = List.of(userId, day, categoryId, type, AmountSketch.bucketOf(amount));
+        histogram.computeIfAbsent(key, k -> new long[1])[0]++;
+    }
+
+    private void upsertHistogram(Map<List<Object>, long[]> histogram) {
+        if (histogram.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(histogram.size());
+        histogram.forEach((key, count) -> rows.add(new Object[] { key.get(0), key.get(1), key.get(2), key.get(3),
+                key.get(4), count[0] }));
+        jdbcTemplate.batchUpdate(HISTOGRAM_UPSERT_SQL, rows);
+    }
+}
@@ -1,28 +1,107 @@
 package cn.nbmly.ai.service.impl;
 
+import cn.nbmly.ai.analytics.BillAnalyticsStore;
 import cn.nbmly.ai.dto.BillDTO;
+import cn.nbmly.ai.dto.BillImportResultDTO;
+import cn.nbmly.ai.dto.BillPageDTO;
 import cn.nbmly.ai.dto.BillRequest;
+import cn.nbmly.ai.dto.BillSyncDTO;
 import cn.nbmly.ai.entity.Bill;
+import cn.nbmly.ai.entity.BillTombstone;
 import cn.nbmly.ai.entity.Category;
+import cn.nbmly.ai.query.BillQuery;
+import cn.nbmly.ai.query.BillSpecifications;
 import cn.nbmly.ai.repository.BillRepository;
+import cn.nbmly.ai.repository.BillTombstoneRepository;
 import cn.nbmly.ai.repository.CategoryRepository;
+import cn.nbmly.ai.service.BillRangeSumService;
+import cn.nbmly.ai.service.BillRollupService;
 import cn.nbmly.ai.service.BillService;
+import cn.nbmly.ai.service.StatisticsCacheService;
+import cn.nbmly.ai.util.AmountCents;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BillServiceImpl implements BillService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DELETE_CHUNK_SIZE = 1000; // IN 列表单次最大长度
+    private static final int IMPORT_CHUNK_SIZE = 1000; // 每个事务写入的行数
+    private static final int MAX_IMPORT_ROWS = 100000;
+    private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
+    private static final String INSERT_BILL_SQL = "INSERT INTO bill (user_id, category_id, amount, amount_cents, type, "
+            + "remarks, bill_time, create_time, update_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int DEFAULT_SYNC_SIZE = 500;
+    private static final int MAX_SYNC_SIZE = 1000;
+    private static final LocalDateTime SYNC_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final DateTimeFormatter EXPORT_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    private static final String EXPORT_BILL_SQL = "SELECT b.id, b.user_id, b.category_id, c.name AS category_name, "
+            + "b.amount, b.type, b.remarks, b.bill_time, b.update_time FROM bill b "
+            + "LEFT JOIN category c ON c.id = b.category_id AND c.deleted_at IS NULL "
+            + "WHERE b.user_id = ? AND b.deleted_at IS NULL ORDER BY b.bill_time DESC, b.id DESC";
+
     private final BillRepository billRepository;
+    private final BillTombstoneRepository billTombstoneRepository;
     private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BillRollupService billRollupService;
+    private final BillRangeSumService billRangeSumService;
+    private final BillAnalyticsStore billAnalyticsStore;
+    private final StatisticsCacheService statisticsCacheService;
+
+    // 更新时间在写入时生成、提交稍后才可见，同步只返回早于该延迟的变更，避免跳过晚提交的行
+    @Value("${bookkeeping.sync.commit-lag:5s}")
+    private Duration syncCommitLag;
+
+    @Value("${bookkeeping.purge.tombstone-retention:30d}")
+    private Duration tombstoneRetention;
 
     @Override
+    @Transactional
     public BillDTO createBill(BillRequest billRequest, Long userId) {
         Category category = categoryRepository.findById(billRequest.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("分类不存在"));
@@ -42,37 +121,239 @@ public class BillServiceImpl implements BillService {
         bill.setBillTime(billRequest.getBillTime());
 
         Bill savedBill = billRepository.save(bill);
+        billRollupService.onBillAdded(savedBill);
+        billRangeSumService.onBillAdded(savedBill);
+        billAnalyticsStore.onBillAdded(savedBill);
+        statisticsCacheService.bumpVersion(userId);
         return toDto(savedBill, category.getName());
     }
 
     @Override
+    public BillImportResultDTO importBills(List<BillRequest> billRequests, Long userId) {
+        if (billRequests.size() > MAX_IMPORT_ROWS) {
+            throw new RuntimeException("单次最多导入" + MAX_IMPORT_ROWS + "条账单");
+        }
+        long start = System.nanoTime();
+        BillImportResultDTO result = new BillImportResultDTO();
+        result.setTotal(billRequests.size());
+
+        // 整批只查询一次分类，逐行校验时直接查表
+        Map<Long, Category> categoryMap = categoryRepository.findByUserId(userId).stream()
+                .collect(Collectors.toMap(Category::getId, Function.identity()));
+
+        List<Bill> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        int imported = 0;
+        for (int row = 0; row < billRequests.size(); row++) {
+            BillRequest billRequest = billRequests.get(row);
+            String error = validateImportRow(billRequest, categoryMap);
+            if (error != null) {
+                result.getErrors().add(new BillImportResultDTO.RowError(row, error));
+                continue;
+            }
+            Bill bill = new Bill();
+            bill.setUserId(userId);
+            bill.setCategoryId(billRequest.getCategoryId());
+            bill.setAmount(billRequest.getAmount());
+            bill.setType(billRequest.getType());
+            bill.setRemarks(billRequest.getRemarks());
+            bill.setBillTime(billRequest.getBillTime());
+            chunk.add(bill);
+            if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                imported += insertChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            imported += insertChunk(chunk);
+        }
+
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        result.setImported(imported);
+        result.setFailed(result.getErrors().size());
+        result.setElapsedMillis(elapsedMillis);
+        result.setRowsPerSecond(imported * 1000L / elapsedMillis);
+        log.info("用户{}批量导入账单：成功{}条，失败{}条，耗时{}ms，{}行/秒", userId, imported, result.getFailed(),
+                elapsedMillis, result.getRowsPerSecond());
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public BillDTO getBillById(Long id, Long userId) {
-        Bill bill = billRepository.findById(id)
+        BillDTO bill = billRepository.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("账单不存在"));
         if (!bill.getUserId().equals(userId)) {
             throw new RuntimeException("无权访问该账单");
         }
-        Category category = categoryRepository.findById(bill.getCategoryId())
-                .orElse(null); // Category might be deleted
-        return toDto(bill, category != null ? category.getName() : "未知分类");
+        return bill;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<BillDTO> getBillsByUser(Long userId) {
-        List<Bill> bills = billRepository.findByUserId(userId);
-        List<Long> categoryIds = bills.stream().map(Bill::getCategoryId).distinct().toList();
-        Map<Long, Category> categoryMap = categoryRepository.findAllById(categoryIds).stream()
-                .collect(Collectors.toMap(Category::getId, Function.identity()));
+        return billRepository.findDtosByUserId(userId);
+    }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<BillDTO> getBillsByUserAndTimeRange(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
+        return billRepository.findDtosByUserIdAndBillTimeRange(userId, startTime, endTime);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BillDTO> searchBills(Long userId, BillQuery query) {
+        Specification<Bill> specification = BillSpecifications.matching(userId, query);
+        Sort sort = Sort.by(Sort.Direction.DESC, "billTime", "id");
+        List<Bill> bills = query.getLimit() != null
+                ? billRepository.findBy(specification, q -> q.sortBy(sort).limit(query.getLimit()).all())
+                : billRepository.findAll(specification, sort);
+
+        // 分类名称按出现的分类ID一次读取，已删除的分类显示为"未知分类"
+        Map<Long, String> categoryNames = categoryRepository.findAllById(bills.stream()
+                        .map(Bill::getCategoryId)
+                        .distinct()
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
         return bills.stream()
-                .map(bill -> {
-                    Category category = categoryMap.get(bill.getCategoryId());
-                    return toDto(bill, category != null ? category.getName() : "未知分类");
-                })
+                .map(bill -> toDto(bill, categoryNames.getOrDefault(bill.getCategoryId(), "未知分类")))
                 .collect(Collectors.toList());
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<BillDTO> getBillsByIds(Collection<Long> ids, Long userId) {
+        List<Long> idList = new ArrayList<>(ids);
+        List<BillDTO> bills = new ArrayList<>(idList.size());
+        for (int from = 0; from < idList.size(); from += DELETE_CHUNK_SIZE) {
+            bills.addAll(billRepository.findDtosByUserIdAndIdIn(userId,
+                    idList.subList(from, Math.min(from + DELETE_CHUNK_SIZE, idList.size()))));
+        }
+        bills.sort(Comparator.comparing(BillDTO::getBillTime).reversed());
+        return bills;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BillPageDTO getBillPage(Long userId, String cursor, int size) {
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        // 多取一条用于判断是否还有下一页
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<BillDTO> bills;
+        if (cursor == null || cursor.isBlank()) {
+            bills = billRepository.findDtoPageByUserId(userId, limit);
+        } else {
+            BillDTO position = decodeCursor(cursor);
+            bills = billRepository.findDtoPageByUserIdAfterCursor(userId, position.getBillTime(), position.getId(),
+                    limit);
+        }
+
+        boolean hasMore = bills.size() > pageSize;
+        if (hasMore) {
+            bills = bills.subList(0, pageSize);
+        }
+
+        BillPageDTO page = new BillPageDTO();
+        page.setItems(bills);
+        page.setHasMore(hasMore);
+        page.setNextCursor(hasMore ? encodeCursor(bills.get(bills.size() - 1)) : null);
+        page.setSize(pageSize);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BillSyncDTO syncBills(Long userId, String cursor, int size) {
+        int pageSize = size <= 0 ? DEFAULT_SYNC_SIZE : Math.min(size, MAX_SYNC_SIZE);
+        LocalDateTime upperTime = LocalDateTime.now().minus(syncCommitLag);
+
+        // 账单与删除记录各按自己的 (时间, id) 推进；首次同步时本地没有账单，删除记录从当前时刻开始即可
+        SyncPosition position = cursor == null || cursor.isBlank()
+                ? new SyncPosition(SYNC_START, 0L, upperTime, 0L)
+                : decodeSyncCursor(cursor);
+        // 游标早于删除记录保留期时，中间的删除记录可能已被清理，只能让客户端全量重建
+        boolean reset = position.deleteTime.isBefore(LocalDateTime.now().minus(tombstoneRetention));
+        if (reset) {
+            position = new SyncPosition(SYNC_START, 0L, upperTime, 0L);
+        }
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<BillDTO> bills = billRepository.findDtoSyncPage(userId, upperTime, position.billTime,
+                position.billId, limit);
+        List<BillTombstone> tombstones = billTombstoneRepository.findSyncPage(userId, upperTime,
+                position.deleteTime, position.tombstoneId, limit);
+
+        boolean hasMore = bills.size() > pageSize || tombstones.size() > pageSize;
+        if (bills.size() > pageSize) {
+            bills = bills.subList(0, pageSize);
+        }
+        if (!bills.isEmpty()) {
+            BillDTO last = bills.get(bills.size() - 1);
+            position.billTime = last.getUpdateTime();
+            position.billId = last.getId();
+        }
+        if (tombstones.size() > pageSize) {
+            tombstones = tombstones.subList(0, pageSize);
+            BillTombstone last = tombstones.get(pageSize - 1);
+            position.deleteTime = last.getDeleteTime();
+            position.tombstoneId = last.getId();
+        } else {
+            // 删除记录已追平，推进到本次上界，避免长期无删除的游标被误判为过期
+            position.deleteTime = upperTime;
+            position.tombstoneId = 0L;
+        }
+
+        BillSyncDTO sync = new BillSyncDTO();
+        sync.setItems(bills);
+        sync.setDeletedIds(tombstones.stream().map(BillTombstone::getBillId).collect(Collectors.toList()));
+        sync.setNextCursor(encodeSyncCursor(position));
+        sync.setHasMore(hasMore);
+        sync.setSize(pageSize);
+        sync.setReset(reset);
+        return sync;
+    }
+
+    @Override
+    public void exportBills(Long userId, String format, OutputStream outputStream) throws IOException {
+        boolean json = "json".equalsIgnoreCase(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (!json) {
+            writer.write('\uFEFF'); // BOM，便于 Excel 正确识别中文
+            writer.write("id,billTime,type,categoryName,amount,remarks\n");
+        }
+
+        // 只进不退的游标 + fetchSize，逐行写出，内存占用与账单总数无关
+        RowCallbackHandler rowWriter = rs -> {
+            try {
+                BillDTO bill = mapExportRow(rs);
+                if (json) {
+                    writer.write(objectMapper.writeValueAsString(bill));
+                } else {
+                    writer.write(bill.getId() + "," + bill.getBillTime().format(EXPORT_TIME_FORMATTER) + ","
+                            + bill.getType() + "," + csvField(bill.getCategoryName()) + ","
+                            + bill.getAmount().toPlainString() + "," + csvField(bill.getRemarks()));
+                }
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(EXPORT_BILL_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(EXPORT_FETCH_SIZE);
+                ps.setLong(1, userId);
+                return ps;
+            }, rowWriter);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    @Override
+    @Transactional
     public BillDTO updateBill(Long id, BillRequest billRequest, Long userId) {
         Bill bill = billRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("账单不存在"));
@@ -89,24 +370,202 @@ public class BillServiceImpl implements BillService {
             throw new RuntimeException("账单类型与分类类型不匹配");
         }
 
+        Bill previous = new Bill();
+        previous.setId(bill.getId());
+        previous.setUserId(bill.getUserId());
+        previous.setCategoryId(bill.getCategoryId());
+        previous.setAmount(bill.getAmount());
+        previous.setType(bill.getType());
+        previous.setBillTime(bill.getBillTime());
+
         bill.setCategoryId(billRequest.getCategoryId());
         bill.setAmount(billRequest.getAmount());
         bill.setType(billRequest.getType());
         bill.setRemarks(billRequest.getRemarks());
         bill.setBillTime(billRequest.getBillTime());
 
-        Bill updatedBill = billRepository.save(bill);
+        // 先落库再调整汇总，重算最大值时才能读到修改后的账单
+        Bill updatedBill = billRepository.saveAndFlush(bill);
+        billRollupService.onBillRemoved(previous);
+        billRollupService.onBillAdded(updatedBill);
+        billRangeSumService.onBillRemoved(previous);
+        billAnalyticsStore.onBillRemoved(previous);
+        billRangeSumService.onBillAdded(updatedBill);
+        billAnalyticsStore.onBillAdded(updatedBill);
+        statisticsCacheService.bumpVersion(userId);
         return toDto(updatedBill, category.getName());
     }
 
     @Override
+    @Transactional
     public void deleteBill(Long id, Long userId) {
         Bill bill = billRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("账单不存在"));
         if (!bill.getUserId().equals(userId)) {
             throw new RuntimeException("无权删除该账单");
         }
-        billRepository.delete(bill);
+        // 软删除只更新一列，物理删除由后台任务在低峰期分批完成
+        LocalDateTime now = LocalDateTime.now();
+        bill.setDeletedAt(now);
+        billRepository.saveAndFlush(bill);
+        BillTombstone tombstone = new BillTombstone();
+        tombstone.setUserId(userId);
+        tombstone.setBillId(bill.getId());
+        tombstone.setDeleteTime(now);
+        billTombstoneRepository.save(tombstone);
+        billRollupService.onBillRemoved(bill);
+        billRangeSumService.onBillRemoved(bill);
+        billAnalyticsStore.onBillRemoved(bill);
+        statisticsCacheService.bumpVersion(userId);
+    }
+
+    @Override
+    @Transactional
+    public int deleteBillsByCategory(Long categoryId, Long userId, boolean dryRun) {
+        if (dryRun) {
+            return (int) billRepository.countByUserIdAndCategoryId(userId, categoryId);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        billTombstoneRepository.insertForCategory(userId, categoryId, now);
+        int deleted = billRepository.softDeleteByUserIdAndCategoryId(userId, categoryId, now);
+        billRollupService.onCategoryBillsRemoved(userId, categoryId);
+        billRangeSumService.invalidate(userId);
+        billAnalyticsStore.invalidate(userId);
+        statisticsCacheService.bumpVersion(userId);
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public int deleteBillsByIds(Collection<Long> ids, Long userId, boolean dryRun) {
+        List<Long> idList = new ArrayList<>(ids);
+        int affected = 0;
+        for (int from = 0; from < idList.size(); from += DELETE_CHUNK_SIZE) {
+            List<Long> chunk = idList.subList(from, Math.min(from + DELETE_CHUNK_SIZE, idList.size()));
+            if (dryRun) {
+                affected += (int) billRepository.countByUserIdAndIdIn(userId, chunk);
+                continue;
+            }
+            // 先读出将被删除的账单，按金额扣减日汇总，避免跨度大的几条账单触发整段重建
+            List<Bill> bills = billRepository.findByUserIdAndIdIn(userId, chunk);
+            LocalDateTime now = LocalDateTime.now();
+            billTombstoneRepository.insertForBills(userId, chunk, now);
+            affected += billRepository.softDeleteByUserIdAndIdIn(userId, chunk, now);
+            billRollupService.onBillsRemoved(bills);
+        }
+        if (!dryRun && affected > 0) {
+            billRangeSumService.invalidate(userId);
+            billAnalyticsStore.invalidate(userId);
+            statisticsCacheService.bumpVersion(userId);
+        }
+        return affected;
+    }
+
+    private String validateImportRow(BillRequest billRequest, Map<Long, Category> categoryMap) {
+        if (billRequest == null) {
+            return "账单数据为空";
+        }
+        if (billRequest.getAmount() == null || billRequest.getAmount().compareTo(MIN_AMOUNT) < 0) {
+            return "金额必须大于0";
+        }
+        if (billRequest.getBillTime() == null) {
+            return "账单时间不能为空";
+        }
+        if (billRequest.getRemarks() != null && billRequest.getRemarks().length() > 255) {
+            return "备注长度不能超过255个字符";
+        }
+        Category category = billRequest.getCategoryId() != null ? categoryMap.get(billRequest.getCategoryId()) : null;
+        if (category == null) {
+            return "分类不存在";
+        }
+        if (!category.getType().equals(billRequest.getType())) {
+            return "账单类型与分类类型不匹配";
+        }
+        return null;
+    }
+
+    private BillDTO mapExportRow(ResultSet rs) throws SQLException {
+        String categoryName = rs.getString("category_name");
+        return new BillDTO(rs.getLong("id"), rs.getLong("user_id"), rs.getLong("category_id"),
+                categoryName != null ? categoryName : "未知分类", rs.getBigDecimal("amount"), rs.getString("type"),
+                rs.getString("remarks"), rs.getObject("bill_time", LocalDateTime.class),
+                rs.getObject("update_time", LocalDateTime.class));
+    }
+
+    private String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    /**
+     * 一个事务内以 JDBC batch 写入一块账单；IDENTITY 主键下 Hibernate 无法批量插入，这里绕过 JPA
+     */
+    private int insertChunk(List<Bill> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_BILL_SQL, chunk, chunk.size(), (ps, bill) -> {
+                ps.setLong(1, bill.getUserId());
+                ps.setLong(2, bill.getCategoryId());
+                ps.setBigDecimal(3, bill.getAmount());
+                ps.setLong(4, AmountCents.of(bill.getAmount()));
+                ps.setString(5, bill.getType());
+                ps.setString(6, bill.getRemarks());
+                ps.setObject(7, bill.getBillTime());
+                ps.setObject(8, now);
+                ps.setObject(9, now);
+            });
+            billRollupService.onBillsAdded(chunk);
+            billRangeSumService.invalidate(chunk.get(0).getUserId());
+            billAnalyticsStore.invalidate(chunk.get(0).getUserId());
+            statisticsCacheService.bumpVersion(chunk.get(0).getUserId());
+        });
+        return chunk.size();
+    }
+
+    /**
+     * 游标内容为最后一条账单的 billTime 和 id，Base64(URL) 编码后返回给前端
+     */
+    private String encodeCursor(BillDTO last) {
+        String raw = last.getBillTime() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private BillDTO decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            BillDTO position = new BillDTO();
+            position.setBillTime(LocalDateTime.parse(raw.substring(0, separator)));
+            position.setId(Long.parseLong(raw.substring(separator + 1)));
+            return position;
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 同步游标依次为账单 updateTime、id 与删除记录 deleteTime、id
+     */
+    private String encodeSyncCursor(SyncPosition position) {
+        String raw = position.billTime + "|" + position.billId + "|" + position.deleteTime + "|"
+                + position.tombstoneId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SyncPosition decodeSyncCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new SyncPosition(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]),
+                    LocalDateTime.parse(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("无效的同步游标");
+        }
     }
 
     private BillDTO toDto(Bill bill, String categoryName) {
@@ -119,6 +578,22 @@ public class BillServiceImpl implements BillService {
         dto.setType(bill.getType());
         dto.setRemarks(bill.getRemarks());
         dto.setBillTime(bill.getBillTime());
+        dto.setUpdateTime(bill.getUpdateTime());
         return dto;
     }
-}
\ No newline at end of file
+
+    private static final class SyncPosition {
+
+        private LocalDateTime billTime;
+        private Long billId;
+        private LocalDateTime deleteTime;
+        private Long tombstoneId;
+
+        SyncPosition(LocalDateTime billTime, Long billId, LocalDateTime deleteTime, Long tombstoneId) {
+            this.billTime = billTime;
+            this.billId = billId;
+            this.deleteTime = deleteTime;
+            this.tombstoneId = tombstoneId;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package cn.nbmly.ai.service.impl;
+
+import cn.nbmly.ai.dto.CategoryDTO;
+import cn.nbmly.ai.entity.Category;
+import cn.nbmly.ai.repository.CategoryRepository;
+import cn.nbmly.ai.service.CategoryMatcherService;
+import cn.nbmly.ai.util.KeywordAutomaton;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 自动机先放入用户自己的分类名，再放入常用分类的同义词，同义词与分类名重复时以分类名为准
+ */
+@Slf4j
+@Service
+public class CategoryMatcherServiceImpl implements CategoryMatcherService {
+
+    // 分类名 -> 描述中常见的说法，只有用户存在同名分类时才生效
+    private static final Map<String, String[]> SYNONYMS = new LinkedHashMap<>();
+
+    static {
+        SYNONYMS.put("餐饮", new String[] { "吃饭", "早餐", "午餐", "晚餐", "夜宵", "外卖" });
+        SYNONYMS.put("交通", new String[] { "打车", "地铁", "公交", "加油", "停车" });
+        SYNONYMS.put("购物", new String[] { "网购", "超市" });
+        SYNONYMS.put("娱乐", new String[] { "电影", "游戏", "唱歌" });
+        SYNONYMS.put("医疗", new String[] { "看病", "医院", "买药" });
+        SYNONYMS.put("住房", new String[] { "房租", "水电", "物业" });
+        SYNONYMS.put("教育", new String[] { "学费", "培训", "买书" });
+        SYNONYMS.put("工资", new String[] { "薪水", "薪资", "发工资" });
+    }
+
+    private final CategoryRepository categoryRepository;
+    private final Cache<Long, KeywordAutomaton<CategoryDTO>> automata;
+
+    public CategoryMatcherServiceImpl(CategoryRepository categoryRepository,
+            @Value("${bookkeeping.category-matcher.maximum-users:10000}") long maximumUsers,
+            @Value("${bookkeeping.category-matcher.expire-after-access:30m}") Duration expireAfterAccess) {
+        this.categoryRepository = categoryRepository;
+        this.automata = Caffeine.newBuilder()
+                .maximumSize(maximumUsers)
+                .expireAfterAccess(expireAfterAccess)
+                .build();
+    }
+
+    @Override
+    public List<CategoryDTO> findAll(Long userId, String text) {
+        List<CategoryDTO> categories = new ArrayList<>();
+        for (KeywordAutomaton.Match<CategoryDTO> match : automaton(userId).findAll(text, null)) {
+            categories.add(match.getValue());
+        }
+        return categories;
+    }
+
+    @Override
+    public CategoryDTO findLongest(Long userId, String text, String type) {
+        KeywordAutomaton.Match<CategoryDTO> match = automaton(userId)
+                .findLongest(text, type == null ? null : category -> type.equals(category.getType()));
+        return match != null ? match.getValue() : null;
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    automata.invalidate(userId);
+                }
+            });
+        } else {
+            automata.invalidate(userId);
+        }
+    }
+
+    private KeywordAutomaton<CategoryDTO> automaton(Long userId) {
+        return automata.get(userId, this::load);
+    }
+
+    private KeywordAutomaton<CategoryDTO> load(Long userId) {
+        List<Category> categories = categoryRepository.findByUserId(userId);
+        Map<String, CategoryDTO> keywords = new LinkedHashMap<>();
+        for (Category category : categories) {
+            keywords.putIfAbsent(category.getName(), toDto(category));
+        }
+        for (Category category : categories) {
+            String[] synonyms = SYNONYMS.get(category.getName());
+            if (synonyms != null) {
+                for (String synonym : synonyms) {
+                    keywords.putIfAbsent(synonym, keywords.get(category.getName()));
+                }
+            }
+        }
+        KeywordAutomaton<CategoryDTO> automaton = KeywordAutomaton.build(keywords);
+        log.debug("用户{}分类匹配自动机已重建：{}个关键词", userId, automaton.size());
+        return automaton;
+    }
+
+    private CategoryDTO toDto(Category category) {
+        CategoryDTO dto = new CategoryDTO();
+        dto.setId(category.getId());
+        dto.setName(category.getName());
+        dto.setType(category.getType());
+        dto.setUserId(category.getUserId());
+        return dto;
+    }
+}
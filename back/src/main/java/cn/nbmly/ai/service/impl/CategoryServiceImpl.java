@@ -4,10 +4,13 @@ import cn.nbmly.ai.dto.CategoryDTO;
 import cn.nbmly.ai.dto.CategoryRequest;
 import cn.nbmly.ai.entity.Category;
 import cn.nbmly.ai.repository.CategoryRepository;
+import cn.nbmly.ai.service.CategoryMatcherService;
 import cn.nbmly.ai.service.CategoryService;
+import cn.nbmly.ai.service.StatisticsCacheService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,6 +19,8 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final StatisticsCacheService statisticsCacheService;
+    private final CategoryMatcherService categoryMatcherService;
 
     @Override
     public CategoryDTO createCategory(CategoryRequest categoryRequest, Long userId) {
@@ -24,6 +29,8 @@ public class CategoryServiceImpl implements CategoryService {
         category.setType(categoryRequest.getType());
         category.setUserId(userId);
         Category savedCategory = categoryRepository.save(category);
+        statisticsCacheService.bumpVersion(userId);
+        categoryMatcherService.invalidate(userId);
         return toDto(savedCategory);
     }
 
@@ -54,6 +61,8 @@ public class CategoryServiceImpl implements CategoryService {
         category.setName(categoryRequest.getName());
         category.setType(categoryRequest.getType());
         Category updatedCategory = categoryRepository.save(category);
+        statisticsCacheService.bumpVersion(userId);
+        categoryMatcherService.invalidate(userId);
         return toDto(updatedCategory);
     }
 
@@ -65,7 +74,10 @@ public class CategoryServiceImpl implements CategoryService {
             throw new RuntimeException("无权删除该分类");
         }
         // TODO: Consider what happens to bills when a category is deleted.
-        categoryRepository.delete(category);
+        category.setDeletedAt(LocalDateTime.now());
+        categoryRepository.save(category);
+        statisticsCacheService.bumpVersion(userId);
+        categoryMatcherService.invalidate(userId);
     }
 
     private CategoryDTO toDto(Category category) {
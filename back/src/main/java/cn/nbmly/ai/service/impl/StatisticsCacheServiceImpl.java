@@ -0,0 +1,145 @@
+package cn.nbmly.ai.service.impl;
+
+import cn.nbmly.ai.dto.StatisticsDTO;
+import cn.nbmly.ai.service.StatisticsCacheService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 本地 Caffeine 缓存，可选以 Redis 保存版本号和二级缓存，供多节点部署共享失效
+ */
+@Slf4j
+@Service
+public class StatisticsCacheServiceImpl implements StatisticsCacheService {
+
+    private static final String VERSION_KEY_PREFIX = "statistics:version:";
+    private static final String VALUE_KEY_PREFIX = "statistics:value:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean redisEnabled;
+    private final Duration ttl;
+    private final Cache<String, StatisticsDTO> cache;
+    private final Map<Long, AtomicLong> localVersions = new ConcurrentHashMap<>();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    // 本地版本号重启后从 0 计数，标签带上启动时间以免与重启前发出的标签相同
+    private final long localEpoch = System.currentTimeMillis();
+
+    public StatisticsCacheServiceImpl(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            @Value("${bookkeeping.statistics-cache.maximum-size:10000}") long maximumSize,
+            @Value("${bookkeeping.statistics-cache.ttl:5m}") Duration ttl,
+            @Value("${bookkeeping.statistics-cache.redis-enabled:false}") boolean redisEnabled) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisEnabled = redisEnabled;
+        this.ttl = ttl;
+        // 近一周/月/年等滚动窗口随时间推移变化，过期时间即这类统计允许的最大偏差
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    public StatisticsDTO get(Long userId, String key, Supplier<StatisticsDTO> loader) {
+        // 先取版本号再计算，写入并发发生时结果只会落在已过期的旧版本下
+        String cacheKey = userId + ":" + currentVersion(userId) + ":" + key;
+        return cache.get(cacheKey, k -> redisEnabled ? loadThroughRedis(k, loader) : loader.get());
+    }
+
+    @Override
+    public void bumpVersion(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementVersion(userId);
+                }
+            });
+        } else {
+            incrementVersion(userId);
+        }
+    }
+
+    @Override
+    public String getVersionTag(Long userId) {
+        long version = currentVersion(userId);
+        return redisEnabled ? userId + "-" + version : userId + "-" + localEpoch + "-" + version;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        result.put("redisEnabled", redisEnabled);
+        if (redisEnabled) {
+            result.put("redisHitCount", redisHits.sum());
+            result.put("redisMissCount", redisMisses.sum());
+        }
+        return result;
+    }
+
+    private long currentVersion(Long userId) {
+        if (redisEnabled) {
+            String version = redisTemplate.opsForValue().get(VERSION_KEY_PREFIX + userId);
+            return version != null ? Long.parseLong(version) : 0;
+        }
+        AtomicLong version = localVersions.get(userId);
+        return version != null ? version.get() : 0;
+    }
+
+    private void incrementVersion(Long userId) {
+        if (redisEnabled) {
+            redisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + userId);
+        } else {
+            localVersions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    private StatisticsDTO loadThroughRedis(String cacheKey, Supplier<StatisticsDTO> loader) {
+        String redisKey = VALUE_KEY_PREFIX + cacheKey;
+        String json = redisTemplate.opsForValue().get(redisKey);
+        if (json != null) {
+            try {
+                StatisticsDTO cached = objectMapper.readValue(json, StatisticsDTO.class);
+                redisHits.increment();
+                return cached;
+            } catch (JsonProcessingException e) {
+                log.warn("统计缓存反序列化失败，重新计算：{}", redisKey, e);
+            }
+        }
+        redisMisses.increment();
+        StatisticsDTO stats = loader.get();
+        try {
+            redisTemplate.opsForValue().set(redisKey, objectMapper.writeValueAsString(stats), ttl);
+        } catch (JsonProcessingException e) {
+            log.warn("统计缓存序列化失败：{}", redisKey, e);
+        }
+        return stats;
+    }
+}
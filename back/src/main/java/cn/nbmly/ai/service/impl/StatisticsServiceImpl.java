@@ -1,77 +1,148 @@
 package cn.nbmly.ai.service.impl;
 
 import cn.nbmly.ai.dto.StatisticsDTO;
-import cn.nbmly.ai.entity.Bill;
-import cn.nbmly.ai.entity.Category;
+import cn.nbmly.ai.dto.StatisticsGranularity;
+import cn.nbmly.ai.dto.StatisticsSection;
+import cn.nbmly.ai.repository.BillAmountHistogramRepository;
+import cn.nbmly.ai.repository.BillDailyRollupRepository;
 import cn.nbmly.ai.repository.BillRepository;
-import cn.nbmly.ai.repository.CategoryRepository;
+import cn.nbmly.ai.repository.StatisticsProjection;
+import cn.nbmly.ai.service.StatisticsCacheService;
 import cn.nbmly.ai.service.StatisticsService;
+import cn.nbmly.ai.util.AmountCents;
+import cn.nbmly.ai.util.AmountSketch;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.LocalTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * 统计读取按用户/日/分类/类型预聚合的 bill_daily_rollup，只有滚动窗口的边界日回查账单表；
+ * 结果按用户数据版本缓存
+ */
 @Service
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class StatisticsServiceImpl implements StatisticsService {
 
+    private static final int TOP_CATEGORY_LIMIT = 3;
+    private static final int MAX_TOP_CATEGORY_LIMIT = 100;
+    private static final int MAX_BUCKETS = 100000;
+    private static final int BUCKET_FETCH_SIZE = 1000;
+    private static final String BUCKET_BILL_SQL = "SELECT type, amount_cents, bill_time FROM bill "
+            + "WHERE user_id = ? AND deleted_at IS NULL";
+    private static final String DISTRIBUTION_BILL_SQL = "SELECT amount FROM bill "
+            + "WHERE user_id = ? AND type = ? AND bill_time >= ? AND bill_time < ? AND deleted_at IS NULL";
+
     private final BillRepository billRepository;
-    private final CategoryRepository categoryRepository;
+    private final BillDailyRollupRepository billDailyRollupRepository;
+    private final BillAmountHistogramRepository billAmountHistogramRepository;
+    private final StatisticsCacheService statisticsCacheService;
+    private final JdbcTemplate jdbcTemplate;
 
     @Override
     public StatisticsDTO getTotalStatistics(Long userId) {
-        List<Bill> bills = billRepository.findByUserId(userId);
-        StatisticsDTO stats = new StatisticsDTO();
+        return statisticsCacheService.get(userId, "total", () -> computeTotalStatistics(userId));
+    }
 
-        BigDecimal totalIncome = BigDecimal.ZERO;
-        BigDecimal totalExpense = BigDecimal.ZERO;
-        BigDecimal maxIncome = BigDecimal.ZERO;
-        BigDecimal maxExpense = BigDecimal.ZERO;
-        BigDecimal sumIncome = BigDecimal.ZERO;
-        BigDecimal sumExpense = BigDecimal.ZERO;
-        int countIncome = 0;
-        int countExpense = 0;
-
-        for (Bill bill : bills) {
-            if ("income".equals(bill.getType())) {
-                totalIncome = totalIncome.add(bill.getAmount());
-                sumIncome = sumIncome.add(bill.getAmount());
-                countIncome++;
-                if (bill.getAmount().compareTo(maxIncome) > 0) {
-                    maxIncome = bill.getAmount();
-                }
-            } else {
-                totalExpense = totalExpense.add(bill.getAmount());
-                sumExpense = sumExpense.add(bill.getAmount());
-                countExpense++;
-                if (bill.getAmount().compareTo(maxExpense) > 0) {
-                    maxExpense = bill.getAmount();
-                }
-            }
+    @Override
+    public StatisticsDTO getTimeBasedStatistics(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null && endTime == null) {
+            return statisticsCacheService.get(userId, "time", () -> computeTimeBasedStatistics(userId));
         }
+        if (startTime == null || endTime == null) {
+            throw new RuntimeException("开始时间和结束时间必须同时指定");
+        }
+        if (!startTime.isBefore(endTime)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+        return statisticsCacheService.get(userId, "range:" + startTime + ":" + endTime,
+                () -> computeRangeStatistics(userId, startTime, endTime));
+    }
 
-        stats.setTotalIncome(totalIncome);
-        stats.setTotalExpense(totalExpense);
-        stats.setNetIncome(totalIncome.subtract(totalExpense));
-        stats.setMaxIncome(maxIncome);
-        stats.setMaxExpense(maxExpense);
-        stats.setAvgIncome(countIncome > 0 ? sumIncome.divide(BigDecimal.valueOf(countIncome), 2, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO);
-        stats.setAvgExpense(
-                countExpense > 0 ? sumExpense.divide(BigDecimal.valueOf(countExpense), 2, RoundingMode.HALF_UP)
-                        : BigDecimal.ZERO);
+    @Override
+    public StatisticsDTO getCategoryStatistics(Long userId) {
+        return statisticsCacheService.get(userId, "category", () -> computeCategoryStatistics(userId));
+    }
 
-        return stats;
+    @Override
+    public StatisticsDTO getMonthlyStatistics(Long userId) {
+        return statisticsCacheService.get(userId, "monthly", () -> computeMonthlyStatistics(userId));
     }
 
     @Override
-    public StatisticsDTO getTimeBasedStatistics(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
-        List<Bill> bills = billRepository.findByUserId(userId);
+    public StatisticsDTO getTopCategoryStatistics(Long userId, int limit, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        if (limit < 1 || limit > MAX_TOP_CATEGORY_LIMIT) {
+            throw new RuntimeException("Top类别数量必须在1到" + MAX_TOP_CATEGORY_LIMIT + "之间");
+        }
+        if ((startTime == null) != (endTime == null)) {
+            throw new RuntimeException("开始时间和结束时间必须同时指定");
+        }
+        if (startTime != null && !startTime.isBefore(endTime)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+        return statisticsCacheService.get(userId, "top:" + limit + ":" + startTime + ":" + endTime,
+                () -> computeTopCategoryStatistics(userId, limit, startTime, endTime));
+    }
+
+    @Override
+    public StatisticsDTO getDailyStatistics(Long userId) {
+        return statisticsCacheService.get(userId, "daily", () -> computeDailyStatistics(userId));
+    }
+
+    @Override
+    public StatisticsDTO getStatistics(Long userId, Set<StatisticsSection> sections) {
+        return statisticsCacheService.get(userId, "all:" + sections, () -> computeStatistics(userId, sections));
+    }
+
+    @Override
+    public StatisticsDTO getDistributionStatistics(Long userId, String type, Long categoryId,
+            LocalDateTime startTime, LocalDateTime endTime) {
+        if (!"expense".equals(type) && !"income".equals(type)) {
+            throw new RuntimeException("账单类型只能是 expense 或 income");
+        }
+        if ((startTime == null) != (endTime == null)) {
+            throw new RuntimeException("开始时间和结束时间必须同时指定");
+        }
+        if (startTime != null && !startTime.isBefore(endTime)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+        return statisticsCacheService.get(userId,
+                "distribution:" + type + ":" + categoryId + ":" + startTime + ":" + endTime,
+                () -> computeDistributionStatistics(userId, type, categoryId, startTime, endTime));
+    }
+
+    @Override
+    public StatisticsDTO getBucketStatistics(Long userId, StatisticsGranularity granularity, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        if ((startTime == null) != (endTime == null)) {
+            throw new RuntimeException("开始时间和结束时间必须同时指定");
+        }
+        if (startTime != null && !startTime.isBefore(endTime)) {
+            throw new RuntimeException("开始时间必须早于结束时间");
+        }
+        return statisticsCacheService.get(userId, "bucket:" + granularity + ":" + startTime + ":" + endTime,
+                () -> computeBucketStatistics(userId, granularity, startTime, endTime));
+    }
+
+    private StatisticsDTO computeTotalStatistics(Long userId) {
+        return toTotalStatistics(billDailyRollupRepository.sumByType(userId));
+    }
+
+    private StatisticsDTO computeTimeBasedStatistics(Long userId) {
         StatisticsDTO stats = new StatisticsDTO();
 
         LocalDateTime now = LocalDateTime.now();
@@ -79,206 +150,586 @@ public class StatisticsServiceImpl implements StatisticsService {
         LocalDateTime monthStart = now.minusMonths(1);
         LocalDateTime yearStart = now.minusYears(1);
 
-        BigDecimal weekIncome = BigDecimal.ZERO;
-        BigDecimal weekExpense = BigDecimal.ZERO;
-        BigDecimal monthIncome = BigDecimal.ZERO;
-        BigDecimal monthExpense = BigDecimal.ZERO;
-        BigDecimal yearIncome = BigDecimal.ZERO;
-        BigDecimal yearExpense = BigDecimal.ZERO;
-
-        for (Bill bill : bills) {
-            LocalDateTime billTime = bill.getBillTime();
-
-            if (billTime.isAfter(weekStart)) {
-                if ("income".equals(bill.getType())) {
-                    weekIncome = weekIncome.add(bill.getAmount());
-                } else {
-                    weekExpense = weekExpense.add(bill.getAmount());
-                }
-            }
+        // 下标 0 为收入，1 为支出
+        long[] weekTotals = new long[2];
+        long[] monthTotals = new long[2];
+        long[] yearTotals = new long[2];
 
-            if (billTime.isAfter(monthStart)) {
-                if ("income".equals(bill.getType())) {
-                    monthIncome = monthIncome.add(bill.getAmount());
-                } else {
-                    monthExpense = monthExpense.add(bill.getAmount());
-                }
-            }
+        // 边界日之后的整天从日汇总读取
+        addWindowTotals(billDailyRollupRepository.sumByTypeAfterDays(userId, weekStart.toLocalDate(),
+                monthStart.toLocalDate(), yearStart.toLocalDate()), weekTotals, monthTotals, yearTotals);
+        // 边界日只统计窗口起点之后的部分，直接查账单表
+        addWindowTotals(sumBoundaryDays(userId, weekStart, monthStart, yearStart), weekTotals, monthTotals,
+                yearTotals);
 
-            if (billTime.isAfter(yearStart)) {
-                if ("income".equals(bill.getType())) {
-                    yearIncome = yearIncome.add(bill.getAmount());
-                } else {
-                    yearExpense = yearExpense.add(bill.getAmount());
-                }
+        setWindowTotals(stats, weekTotals, monthTotals, yearTotals);
+        return stats;
+    }
+
+    /**
+     * 区间内的整天读日汇总，首尾不足一天的部分按账单时间索引回查账单表
+     */
+    private StatisticsDTO computeRangeStatistics(Long userId, LocalDateTime startTime, LocalDateTime endTime) {
+        LocalDate firstFullDay = startTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startTime.toLocalDate()
+                : startTime.toLocalDate().plusDays(1);
+        LocalDate endFullDay = endTime.toLocalDate();
+
+        List<StatisticsProjection.TypeSummary> summaries = new ArrayList<>();
+        if (firstFullDay.isBefore(endFullDay)) {
+            summaries.addAll(billDailyRollupRepository.sumByTypeBetweenDays(userId, firstFullDay, endFullDay));
+            if (startTime.isBefore(firstFullDay.atStartOfDay())) {
+                summaries.addAll(billRepository.sumByTypeInRange(userId, startTime, firstFullDay.atStartOfDay()));
+            }
+            if (endTime.isAfter(endFullDay.atStartOfDay())) {
+                summaries.addAll(billRepository.sumByTypeInRange(userId, endFullDay.atStartOfDay(), endTime));
             }
+        } else {
+            summaries.addAll(billRepository.sumByTypeInRange(userId, startTime, endTime));
         }
+        return toTotalStatistics(summaries);
+    }
 
-        stats.setWeekIncome(weekIncome);
-        stats.setWeekExpense(weekExpense);
-        stats.setMonthIncome(monthIncome);
-        stats.setMonthExpense(monthExpense);
-        stats.setYearIncome(yearIncome);
-        stats.setYearExpense(yearExpense);
+    private StatisticsDTO computeCategoryStatistics(Long userId) {
+        List<StatisticsDTO.CategoryStat> categoryStats = billDailyRollupRepository.sumByCategory(userId).stream()
+                .map(summary -> toCategoryStat(summary,
+                        summary.getCategoryType() != null ? summary.getCategoryType() : "unknown"))
+                .collect(Collectors.toList());
 
+        StatisticsDTO stats = new StatisticsDTO();
+        stats.setCategoryStats(categoryStats);
         return stats;
     }
 
-    @Override
-    public StatisticsDTO getCategoryStatistics(Long userId) {
-        List<Bill> bills = billRepository.findByUserId(userId);
-        List<Category> categories = categoryRepository.findByUserId(userId);
+    private StatisticsDTO computeMonthlyStatistics(Long userId) {
+        Map<String, long[]> monthlyTotals = new TreeMap<>();
+        for (StatisticsProjection.PeriodSummary summary : billDailyRollupRepository.sumByMonth(userId)) {
+            String month = String.format("%04d-%02d", summary.getPeriodYear(), summary.getPeriodMonth());
+            addPeriodTotal(monthlyTotals, month, summary);
+        }
 
-        Map<Long, Category> categoryMap = categories.stream()
-                .collect(Collectors.toMap(Category::getId, c -> c));
+        StatisticsDTO stats = new StatisticsDTO();
+        stats.setMonthlyStats(toMonthlyStats(monthlyTotals));
+        return stats;
+    }
 
-        Map<Long, BigDecimal> categoryAmounts = new HashMap<>();
+    /**
+     * 排序与截断由数据库 ORDER BY ... LIMIT 完成；其余类别合计 = 类型总额 - Top类别之和。
+     * 不限区间或区间按整天对齐时读日汇总，否则在账单表上做有界范围扫描
+     */
+    private StatisticsDTO computeTopCategoryStatistics(Long userId, int limit, LocalDateTime startTime,
+            LocalDateTime endTime) {
+        PageRequest page = PageRequest.of(0, limit);
+        boolean dayAligned = startTime == null || (startTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                && endTime.toLocalTime().equals(LocalTime.MIDNIGHT));
+
+        Map<String, List<StatisticsDTO.CategoryStat>> topByType = new HashMap<>();
+        for (String type : List.of("expense", "income")) {
+            List<StatisticsProjection.CategorySummary> summaries;
+            if (startTime == null) {
+                summaries = billDailyRollupRepository.findTopCategoriesByType(userId, type, page);
+            } else if (dayAligned) {
+                summaries = billDailyRollupRepository.findTopCategoriesByTypeBetweenDays(userId, type,
+                        startTime.toLocalDate(), endTime.toLocalDate(), page);
+            } else {
+                summaries = billRepository.findTopCategoriesByTypeInRange(userId, type, startTime, endTime, page);
+            }
+            topByType.put(type, summaries.stream()
+                    .map(summary -> toCategoryStat(summary, type))
+                    .collect(Collectors.toList()));
+        }
 
-        for (Bill bill : bills) {
-            Long categoryId = bill.getCategoryId();
-            categoryAmounts.merge(categoryId, bill.getAmount(), BigDecimal::add);
+        List<StatisticsProjection.TypeSummary> totals;
+        if (startTime == null) {
+            totals = billDailyRollupRepository.sumByType(userId);
+        } else if (dayAligned) {
+            totals = billDailyRollupRepository.sumByTypeBetweenDays(userId, startTime.toLocalDate(),
+                    endTime.toLocalDate());
+        } else {
+            totals = billRepository.sumByTypeInRange(userId, startTime, endTime);
+        }
+        long[] typeTotals = new long[2];
+        for (StatisticsProjection.TypeSummary summary : totals) {
+            int t = "income".equals(summary.getType()) ? 0 : 1;
+            typeTotals[t] = AmountCents.add(typeTotals[t], summary.getTotalCents());
         }
 
-        List<StatisticsDTO.CategoryStat> categoryStats = categoryAmounts.entrySet().stream()
-                .map(entry -> {
-                    StatisticsDTO.CategoryStat stat = new StatisticsDTO.CategoryStat();
-                    stat.setCategoryId(entry.getKey());
-                    Category category = categoryMap.get(entry.getKey());
-                    stat.setCategoryName(category != null ? category.getName() : "未知分类");
-                    stat.setAmount(entry.getValue());
-                    stat.setType(category != null ? category.getType() : "unknown");
-                    return stat;
-                })
-                .collect(Collectors.toList());
+        StatisticsDTO stats = new StatisticsDTO();
+        stats.setTopExpenseCategories(topByType.get("expense"));
+        stats.setTopIncomeCategories(topByType.get("income"));
+        stats.setOtherExpenseAmount(otherAmount(typeTotals[1], topByType.get("expense")));
+        stats.setOtherIncomeAmount(otherAmount(typeTotals[0], topByType.get("income")));
+        return stats;
+    }
+
+    private StatisticsDTO computeDailyStatistics(Long userId) {
+        Map<String, long[]> dailyTotals = new TreeMap<>();
+        for (StatisticsProjection.PeriodSummary summary : billDailyRollupRepository.sumByDay(userId)) {
+            String day = String.format("%04d-%02d-%02d", summary.getPeriodYear(), summary.getPeriodMonth(),
+                    summary.getPeriodDay());
+            addPeriodTotal(dailyTotals, day, summary);
+        }
 
         StatisticsDTO stats = new StatisticsDTO();
-        stats.setCategoryStats(categoryStats);
+        stats.setDailyStats(toDailyStats(dailyTotals));
         return stats;
     }
 
-    @Override
-    public StatisticsDTO getMonthlyStatistics(Long userId) {
-        List<Bill> bills = billRepository.findByUserId(userId);
-        Map<String, BigDecimal> monthlyIncome = new HashMap<>();
-        Map<String, BigDecimal> monthlyExpense = new HashMap<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-
-        for (Bill bill : bills) {
-            String month = bill.getBillTime().format(formatter);
-            if ("income".equals(bill.getType())) {
-                monthlyIncome.merge(month, bill.getAmount(), BigDecimal::add);
-            } else {
-                monthlyExpense.merge(month, bill.getAmount(), BigDecimal::add);
+    private StatisticsDTO computeStatistics(Long userId, Set<StatisticsSection> sections) {
+        boolean withTotal = sections.contains(StatisticsSection.TOTAL);
+        boolean withTime = sections.contains(StatisticsSection.TIME);
+        boolean withCategory = sections.contains(StatisticsSection.CATEGORY);
+        boolean withTop = sections.contains(StatisticsSection.TOP_CATEGORIES);
+        boolean withMonthly = sections.contains(StatisticsSection.MONTHLY);
+        boolean withDaily = sections.contains(StatisticsSection.DAILY);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime weekStart = now.minusWeeks(1);
+        LocalDateTime monthStart = now.minusMonths(1);
+        LocalDateTime yearStart = now.minusYears(1);
+        LocalDate weekDay = weekStart.toLocalDate();
+        LocalDate monthDay = monthStart.toLocalDate();
+        LocalDate yearDay = yearStart.toLocalDate();
+
+        // 下标 0 为收入，1 为支出；金额一律以分累加，输出时再换算为元
+        long[] totals = new long[2];
+        BigDecimal[] maxima = { BigDecimal.ZERO, BigDecimal.ZERO };
+        long[] counts = new long[2];
+        long[] weekTotals = new long[2];
+        long[] monthTotals = new long[2];
+        long[] yearTotals = new long[2];
+        Map<Long, CategoryTotal> categoryTotals = new LinkedHashMap<>();
+        List<Map<Long, CategoryTotal>> topTotals = List.of(new HashMap<>(), new HashMap<>());
+        Map<String, long[]> monthlyTotals = new TreeMap<>();
+        Map<String, long[]> dailyTotals = new TreeMap<>();
+
+        // 单次遍历日汇总行，同时累加所有请求的板块
+        for (StatisticsProjection.RollupRow row : billDailyRollupRepository.findRowsByUserId(userId)) {
+            int t = "income".equals(row.getType()) ? 0 : 1;
+            long cents = row.getTotalCents();
+            LocalDate day = row.getBillDay();
+
+            if (withTotal) {
+                totals[t] = AmountCents.add(totals[t], cents);
+                counts[t] += row.getBillCount();
+                maxima[t] = maxima[t].max(row.getMaxAmount());
+            }
+            if (withTime && day.isAfter(yearDay)) {
+                yearTotals[t] = AmountCents.add(yearTotals[t], cents);
+                if (day.isAfter(monthDay)) {
+                    monthTotals[t] = AmountCents.add(monthTotals[t], cents);
+                }
+                if (day.isAfter(weekDay)) {
+                    weekTotals[t] = AmountCents.add(weekTotals[t], cents);
+                }
+            }
+            if (withCategory) {
+                String categoryType = row.getCategoryType() != null ? row.getCategoryType() : "unknown";
+                categoryTotal(categoryTotals, row, categoryType).add(cents);
+            }
+            if (withTop) {
+                categoryTotal(topTotals.get(t), row, row.getType()).add(cents);
+            }
+            if (withMonthly) {
+                String month = String.format("%04d-%02d", day.getYear(), day.getMonthValue());
+                long[] monthly = monthlyTotals.computeIfAbsent(month, key -> new long[2]);
+                monthly[t] = AmountCents.add(monthly[t], cents);
+            }
+            if (withDaily) {
+                long[] daily = dailyTotals.computeIfAbsent(day.toString(), key -> new long[2]);
+                daily[t] = AmountCents.add(daily[t], cents);
             }
         }
 
-        Set<String> allMonths = new HashSet<>();
-        allMonths.addAll(monthlyIncome.keySet());
-        allMonths.addAll(monthlyExpense.keySet());
+        StatisticsDTO stats = new StatisticsDTO();
+        if (withTotal) {
+            setTotals(stats, totals, maxima, counts);
+        }
+        if (withTime) {
+            addWindowTotals(sumBoundaryDays(userId, weekStart, monthStart, yearStart), weekTotals, monthTotals,
+                    yearTotals);
+            setWindowTotals(stats, weekTotals, monthTotals, yearTotals);
+        }
+        if (withCategory) {
+            stats.setCategoryStats(categoryTotals.values().stream()
+                    .map(CategoryTotal::toStat)
+                    .collect(Collectors.toList()));
+        }
+        if (withTop) {
+            stats.setTopIncomeCategories(topCategories(topTotals.get(0)));
+            stats.setTopExpenseCategories(topCategories(topTotals.get(1)));
+            stats.setOtherIncomeAmount(otherAmount(topTotals.get(0), stats.getTopIncomeCategories()));
+            stats.setOtherExpenseAmount(otherAmount(topTotals.get(1), stats.getTopExpenseCategories()));
+        }
+        if (withMonthly) {
+            stats.setMonthlyStats(toMonthlyStats(monthlyTotals));
+        }
+        if (withDaily) {
+            stats.setDailyStats(toDailyStats(dailyTotals));
+        }
+        return stats;
+    }
 
-        List<StatisticsDTO.MonthlyStat> monthlyStats = allMonths.stream()
-                .sorted()
-                .map(month -> {
-                    StatisticsDTO.MonthlyStat stat = new StatisticsDTO.MonthlyStat();
-                    stat.setMonth(month);
-                    stat.setIncome(monthlyIncome.getOrDefault(month, BigDecimal.ZERO));
-                    stat.setExpense(monthlyExpense.getOrDefault(month, BigDecimal.ZERO));
-                    return stat;
-                })
-                .collect(Collectors.toList());
+    /**
+     * 合并按类型汇总的结果（可来自日汇总和账单表的多段区间），计算合计、最大值和平均值
+     */
+    private StatisticsDTO toTotalStatistics(List<StatisticsProjection.TypeSummary> summaries) {
+        // 下标 0 为收入，1 为支出
+        long[] totals = new long[2];
+        BigDecimal[] maxima = { BigDecimal.ZERO, BigDecimal.ZERO };
+        long[] counts = new long[2];
+        for (StatisticsProjection.TypeSummary summary : summaries) {
+            int t = "income".equals(summary.getType()) ? 0 : 1;
+            totals[t] = AmountCents.add(totals[t], summary.getTotalCents());
+            counts[t] += summary.getBillCount();
+            maxima[t] = maxima[t].max(summary.getMaxAmount());
+        }
 
         StatisticsDTO stats = new StatisticsDTO();
-        stats.setMonthlyStats(monthlyStats);
+        setTotals(stats, totals, maxima, counts);
         return stats;
     }
 
-    @Override
-    public StatisticsDTO getTopCategoryStatistics(Long userId) {
-        List<Bill> bills = billRepository.findByUserId(userId);
-        List<Category> categories = categoryRepository.findByUserId(userId);
+    private void setTotals(StatisticsDTO stats, long[] totals, BigDecimal[] maxima, long[] counts) {
+        stats.setTotalIncome(AmountCents.toAmount(totals[0]));
+        stats.setTotalExpense(AmountCents.toAmount(totals[1]));
+        stats.setNetIncome(AmountCents.toAmount(AmountCents.subtract(totals[0], totals[1])));
+        stats.setMaxIncome(maxima[0]);
+        stats.setMaxExpense(maxima[1]);
+        stats.setAvgIncome(counts[0] > 0
+                ? stats.getTotalIncome().divide(BigDecimal.valueOf(counts[0]), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+        stats.setAvgExpense(counts[1] > 0
+                ? stats.getTotalExpense().divide(BigDecimal.valueOf(counts[1]), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO);
+    }
+
+    private void addWindowTotals(List<StatisticsProjection.WindowSummary> summaries, long[] weekTotals,
+            long[] monthTotals, long[] yearTotals) {
+        for (StatisticsProjection.WindowSummary summary : summaries) {
+            int t = "income".equals(summary.getType()) ? 0 : 1;
+            weekTotals[t] = AmountCents.add(weekTotals[t], summary.getWeekCents());
+            monthTotals[t] = AmountCents.add(monthTotals[t], summary.getMonthCents());
+            yearTotals[t] = AmountCents.add(yearTotals[t], summary.getYearCents());
+        }
+    }
+
+    private void setWindowTotals(StatisticsDTO stats, long[] weekTotals, long[] monthTotals, long[] yearTotals) {
+        stats.setWeekIncome(AmountCents.toAmount(weekTotals[0]));
+        stats.setWeekExpense(AmountCents.toAmount(weekTotals[1]));
+        stats.setMonthIncome(AmountCents.toAmount(monthTotals[0]));
+        stats.setMonthExpense(AmountCents.toAmount(monthTotals[1]));
+        stats.setYearIncome(AmountCents.toAmount(yearTotals[0]));
+        stats.setYearExpense(AmountCents.toAmount(yearTotals[1]));
+    }
+
+    private void addPeriodTotal(Map<String, long[]> periodTotals, String period,
+            StatisticsProjection.PeriodSummary summary) {
+        long[] total = periodTotals.computeIfAbsent(period, key -> new long[2]);
+        int t = "income".equals(summary.getType()) ? 0 : 1;
+        total[t] = AmountCents.add(total[t], summary.getTotalCents());
+    }
 
-        Map<Long, Category> categoryMap = categories.stream()
-                .collect(Collectors.toMap(Category::getId, c -> c));
+    private List<StatisticsDTO.MonthlyStat> toMonthlyStats(Map<String, long[]> monthlyTotals) {
+        List<StatisticsDTO.MonthlyStat> monthly = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : monthlyTotals.entrySet()) {
+            StatisticsDTO.MonthlyStat stat = new StatisticsDTO.MonthlyStat();
+            stat.setMonth(entry.getKey());
+            stat.setIncome(AmountCents.toAmount(entry.getValue()[0]));
+            stat.setExpense(AmountCents.toAmount(entry.getValue()[1]));
+            monthly.add(stat);
+        }
+        return monthly;
+    }
 
-        Map<Long, BigDecimal> expenseCategoryAmounts = new HashMap<>();
-        Map<Long, BigDecimal> incomeCategoryAmounts = new HashMap<>();
+    private List<StatisticsDTO.DailyStat> toDailyStats(Map<String, long[]> dailyTotals) {
+        List<StatisticsDTO.DailyStat> daily = new ArrayList<>();
+        for (Map.Entry<String, long[]> entry : dailyTotals.entrySet()) {
+            StatisticsDTO.DailyStat stat = new StatisticsDTO.DailyStat();
+            stat.setDate(entry.getKey());
+            stat.setIncome(AmountCents.toAmount(entry.getValue()[0]));
+            stat.setExpense(AmountCents.toAmount(entry.getValue()[1]));
+            daily.add(stat);
+        }
+        return daily;
+    }
 
-        for (Bill bill : bills) {
-            Long categoryId = bill.getCategoryId();
-            if ("income".equals(bill.getType())) {
-                incomeCategoryAmounts.merge(categoryId, bill.getAmount(), BigDecimal::add);
+    /**
+     * 合并区间内各日的金额分布草图；首尾不足一天的部分读取账单金额后按同样规则分桶并入
+     */
+    private StatisticsDTO computeDistributionStatistics(Long userId, String type, Long categoryId,
+            LocalDateTime startTime, LocalDateTime endTime) {
+        AmountSketch sketch = new AmountSketch();
+        if (startTime == null) {
+            addBuckets(sketch, billAmountHistogramRepository.sumBuckets(userId, type, categoryId));
+        } else {
+            LocalDate firstFullDay = startTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                    ? startTime.toLocalDate()
+                    : startTime.toLocalDate().plusDays(1);
+            LocalDate endFullDay = endTime.toLocalDate();
+            if (firstFullDay.isBefore(endFullDay)) {
+                addBuckets(sketch, billAmountHistogramRepository.sumBucketsBetweenDays(userId, type, categoryId,
+                        firstFullDay, endFullDay));
+                if (startTime.isBefore(firstFullDay.atStartOfDay())) {
+                    addBillAmounts(sketch, userId, type, categoryId, startTime, firstFullDay.atStartOfDay());
+                }
+                if (endTime.isAfter(endFullDay.atStartOfDay())) {
+                    addBillAmounts(sketch, userId, type, categoryId, endFullDay.atStartOfDay(), endTime);
+                }
             } else {
-                expenseCategoryAmounts.merge(categoryId, bill.getAmount(), BigDecimal::add);
+                addBillAmounts(sketch, userId, type, categoryId, startTime, endTime);
             }
         }
 
-        List<StatisticsDTO.CategoryStat> topExpenseCategories = expenseCategoryAmounts.entrySet().stream()
-                .sorted(Map.Entry.<Long, BigDecimal>comparingByValue().reversed())
-                .limit(3)
-                .map(entry -> {
-                    StatisticsDTO.CategoryStat stat = new StatisticsDTO.CategoryStat();
-                    stat.setCategoryId(entry.getKey());
-                    Category category = categoryMap.get(entry.getKey());
-                    stat.setCategoryName(category != null ? category.getName() : "未知分类");
-                    stat.setAmount(entry.getValue());
-                    stat.setType("expense");
-                    return stat;
-                })
-                .collect(Collectors.toList());
-
-        List<StatisticsDTO.CategoryStat> topIncomeCategories = incomeCategoryAmounts.entrySet().stream()
-                .sorted(Map.Entry.<Long, BigDecimal>comparingByValue().reversed())
-                .limit(3)
-                .map(entry -> {
-                    StatisticsDTO.CategoryStat stat = new StatisticsDTO.CategoryStat();
-                    stat.setCategoryId(entry.getKey());
-                    Category category = categoryMap.get(entry.getKey());
-                    stat.setCategoryName(category != null ? category.getName() : "未知分类");
-                    stat.setAmount(entry.getValue());
-                    stat.setType("income");
-                    return stat;
-                })
-                .collect(Collectors.toList());
+        StatisticsDTO.DistributionStat distribution = new StatisticsDTO.DistributionStat();
+        distribution.setType(type);
+        distribution.setCategoryId(categoryId);
+        distribution.setCount(sketch.getTotalCount());
+        distribution.setMedian(sketch.quantile(0.5));
+        distribution.setP90(sketch.quantile(0.9));
+        distribution.setP99(sketch.quantile(0.99));
+        distribution.setHistogram(sketch.histogram().stream().map(bin -> {
+            StatisticsDTO.HistogramBin histogramBin = new StatisticsDTO.HistogramBin();
+            histogramBin.setLowerBound(bin.getLowerBound());
+            histogramBin.setUpperBound(bin.getUpperBound());
+            histogramBin.setCount(bin.getCount());
+            return histogramBin;
+        }).collect(Collectors.toList()));
 
         StatisticsDTO stats = new StatisticsDTO();
-        stats.setTopExpenseCategories(topExpenseCategories);
-        stats.setTopIncomeCategories(topIncomeCategories);
+        stats.setDistribution(distribution);
         return stats;
     }
 
-    @Override
-    public StatisticsDTO getDailyStatistics(Long userId) {
-        List<Bill> bills = billRepository.findByUserId(userId);
-        Map<String, BigDecimal> dailyIncome = new HashMap<>();
-        Map<String, BigDecimal> dailyExpense = new HashMap<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-        for (Bill bill : bills) {
-            String day = bill.getBillTime().format(formatter);
-            if ("income".equals(bill.getType())) {
-                dailyIncome.merge(day, bill.getAmount(), BigDecimal::add);
-            } else {
-                dailyExpense.merge(day, bill.getAmount(), BigDecimal::add);
-            }
+    private void addBuckets(AmountSketch sketch, List<StatisticsProjection.BucketCount> buckets) {
+        for (StatisticsProjection.BucketCount bucket : buckets) {
+            sketch.add(bucket.getBucket(), bucket.getBillCount());
         }
+    }
 
-        Set<String> allDays = new HashSet<>();
-        allDays.addAll(dailyIncome.keySet());
-        allDays.addAll(dailyExpense.keySet());
+    private void addBillAmounts(AmountSketch sketch, Long userId, String type, Long categoryId,
+            LocalDateTime startTime, LocalDateTime endTime) {
+        RowCallbackHandler handler = rs -> sketch.add(AmountSketch.bucketOf(rs.getBigDecimal(1)), 1);
+        if (categoryId == null) {
+            jdbcTemplate.query(DISTRIBUTION_BILL_SQL, handler, userId, type, startTime, endTime);
+        } else {
+            jdbcTemplate.query(DISTRIBUTION_BILL_SQL + " AND category_id = ?", handler, userId, type, startTime,
+                    endTime, categoryId);
+        }
+    }
 
-        List<StatisticsDTO.DailyStat> dailyStats = allDays.stream()
-                .sorted()
-                .map(day -> {
-                    StatisticsDTO.DailyStat stat = new StatisticsDTO.DailyStat();
-                    stat.setDate(day);
-                    stat.setIncome(dailyIncome.getOrDefault(day, BigDecimal.ZERO));
-                    stat.setExpense(dailyExpense.getOrDefault(day, BigDecimal.ZERO));
-                    return stat;
-                })
-                .collect(Collectors.toList());
+    /**
+     * 区间按整天对齐且粒度不细于天时在日汇总上分桶，否则用只进游标逐行扫描账单表
+     */
+    private StatisticsDTO computeBucketStatistics(Long userId, StatisticsGranularity granularity,
+            LocalDateTime startTime, LocalDateTime endTime) {
+        boolean dayAligned = startTime == null || (startTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                && endTime.toLocalTime().equals(LocalTime.MIDNIGHT));
+        BucketAccumulator buckets = !granularity.needsTimeOfDay() && dayAligned
+                ? bucketRollupRows(userId, granularity, startTime, endTime)
+                : bucketBillRows(userId, granularity, startTime, endTime);
 
         StatisticsDTO stats = new StatisticsDTO();
-        stats.setDailyStats(dailyStats);
+        stats.setGranularity(granularity.name().toLowerCase(Locale.ROOT));
+        stats.setBucketStats(buckets != null ? buckets.toStats() : new ArrayList<>());
         return stats;
     }
-}
\ No newline at end of file
+
+    private BucketAccumulator bucketRollupRows(Long userId, StatisticsGranularity granularity,
+            LocalDateTime startTime, LocalDateTime endTime) {
+        List<StatisticsProjection.RollupRow> rows = startTime == null
+                ? billDailyRollupRepository.findRowsByUserId(userId)
+                : billDailyRollupRepository.findRowsByUserIdBetweenDays(userId, startTime.toLocalDate(),
+                        endTime.toLocalDate());
+        if (rows.isEmpty()) {
+            return null;
+        }
+        // 行按日期升序，首尾两行即确定非周期粒度的键范围
+        BucketAccumulator buckets = granularity.isCyclic()
+                ? new BucketAccumulator(granularity, 0, granularity.getCycleLength())
+                : BucketAccumulator.spanning(granularity, granularity.keyOf(rows.get(0).getBillDay()),
+                        granularity.keyOf(rows.get(rows.size() - 1).getBillDay()));
+        for (StatisticsProjection.RollupRow row : rows) {
+            buckets.add(granularity.keyOf(row.getBillDay()), "income".equals(row.getType()), row.getTotalCents(),
+                    row.getBillCount());
+        }
+        return buckets;
+    }
+
+    private BucketAccumulator bucketBillRows(Long userId, StatisticsGranularity granularity,
+            LocalDateTime startTime, LocalDateTime endTime) {
+        BucketAccumulator buckets;
+        if (granularity.isCyclic()) {
+            buckets = new BucketAccumulator(granularity, 0, granularity.getCycleLength());
+        } else if (startTime != null) {
+            buckets = BucketAccumulator.spanning(granularity, granularity.keyOf(startTime),
+                    granularity.keyOf(endTime.minusNanos(1)));
+        } else {
+            throw new IllegalStateException("非周期粒度不指定区间时应读取日汇总");
+        }
+
+        String sql = startTime == null ? BUCKET_BILL_SQL
+                : BUCKET_BILL_SQL + " AND bill_time >= ? AND bill_time < ?";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(BUCKET_FETCH_SIZE);
+            ps.setLong(1, userId);
+            if (startTime != null) {
+                ps.setObject(2, startTime);
+                ps.setObject(3, endTime);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> buckets.add(granularity.keyOf(rs.getObject(3, LocalDateTime.class)),
+                "income".equals(rs.getString(1)), rs.getLong(2), 1));
+        return buckets;
+    }
+
+    private List<StatisticsProjection.WindowSummary> sumBoundaryDays(Long userId, LocalDateTime weekStart,
+            LocalDateTime monthStart, LocalDateTime yearStart) {
+        return billRepository.sumByTypeInBoundaryDays(userId,
+                weekStart, weekStart.toLocalDate().plusDays(1).atStartOfDay(),
+                monthStart, monthStart.toLocalDate().plusDays(1).atStartOfDay(),
+                yearStart, yearStart.toLocalDate().plusDays(1).atStartOfDay());
+    }
+
+    private CategoryTotal categoryTotal(Map<Long, CategoryTotal> categoryTotals, StatisticsProjection.RollupRow row,
+            String type) {
+        return categoryTotals.computeIfAbsent(row.getCategoryId(), key -> new CategoryTotal(key,
+                row.getCategoryName() != null ? row.getCategoryName() : "未知分类", type));
+    }
+
+    /**
+     * 容量为 K 的小顶堆筛选金额最高的类别，只对保留下来的 K 个排序
+     */
+    private List<StatisticsDTO.CategoryStat> topCategories(Map<Long, CategoryTotal> categoryTotals) {
+        Comparator<CategoryTotal> byAmount = Comparator.comparingLong(total -> total.cents);
+        PriorityQueue<CategoryTotal> heap = new PriorityQueue<>(TOP_CATEGORY_LIMIT + 1, byAmount);
+        for (CategoryTotal total : categoryTotals.values()) {
+            if (heap.size() < TOP_CATEGORY_LIMIT) {
+                heap.add(total);
+            } else if (byAmount.compare(total, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(total);
+            }
+        }
+        List<CategoryTotal> top = new ArrayList<>(heap);
+        top.sort(byAmount.reversed());
+        return top.stream().map(CategoryTotal::toStat).collect(Collectors.toList());
+    }
+
+    private BigDecimal otherAmount(Map<Long, CategoryTotal> categoryTotals, List<StatisticsDTO.CategoryStat> top) {
+        long sum = 0;
+        for (CategoryTotal total : categoryTotals.values()) {
+            sum = AmountCents.add(sum, total.cents);
+        }
+        return otherAmount(sum, top);
+    }
+
+    /**
+     * 类型总额（分）减去 Top 类别之和
+     */
+    private BigDecimal otherAmount(long totalCents, List<StatisticsDTO.CategoryStat> top) {
+        long sum = totalCents;
+        for (StatisticsDTO.CategoryStat stat : top) {
+            sum = AmountCents.subtract(sum, AmountCents.of(stat.getAmount()));
+        }
+        return AmountCents.toAmount(sum);
+    }
+
+    private StatisticsDTO.CategoryStat toCategoryStat(StatisticsProjection.CategorySummary summary, String type) {
+        StatisticsDTO.CategoryStat stat = new StatisticsDTO.CategoryStat();
+        stat.setCategoryId(summary.getCategoryId());
+        stat.setCategoryName(summary.getCategoryName() != null ? summary.getCategoryName() : "未知分类");
+        stat.setAmount(AmountCents.toAmount(summary.getTotalCents()));
+        stat.setType(type);
+        return stat;
+    }
+
+    /**
+     * 单个类别以分累加的合计，输出时转换为 CategoryStat
+     */
+    private static final class CategoryTotal {
+
+        private final Long categoryId;
+        private final String categoryName;
+        private final String type;
+        private long cents;
+
+        CategoryTotal(Long categoryId, String categoryName, String type) {
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+            this.type = type;
+        }
+
+        void add(long amount) {
+            cents = AmountCents.add(cents, amount);
+        }
+
+        StatisticsDTO.CategoryStat toStat() {
+            StatisticsDTO.CategoryStat stat = new StatisticsDTO.CategoryStat();
+            stat.setCategoryId(categoryId);
+            stat.setCategoryName(categoryName);
+            stat.setAmount(AmountCents.toAmount(cents));
+            stat.setType(type);
+            return stat;
+        }
+    }
+
+    /**
+     * 以分为单位累加到按桶键下标寻址的基本类型数组
+     */
+    private static final class BucketAccumulator {
+
+        private final StatisticsGranularity granularity;
+        private final long firstKey;
+        private final long[] incomeCents;
+        private final long[] expenseCents;
+        private final long[] counts;
+
+        BucketAccumulator(StatisticsGranularity granularity, long firstKey, int size) {
+            this.granularity = granularity;
+            this.firstKey = firstKey;
+            this.incomeCents = new long[size];
+            this.expenseCents = new long[size];
+            this.counts = new long[size];
+        }
+
+        static BucketAccumulator spanning(StatisticsGranularity granularity, long firstKey, long lastKey) {
+            long size = lastKey - firstKey + 1;
+            if (size > MAX_BUCKETS) {
+                throw new RuntimeException("时间范围过大，请缩小范围或使用更粗的粒度");
+            }
+            return new BucketAccumulator(granularity, firstKey, (int) size);
+        }
+
+        void add(long key, boolean income, long cents, long count) {
+            int index = (int) (key - firstKey);
+            if (income) {
+                incomeCents[index] = AmountCents.add(incomeCents[index], cents);
+            } else {
+                expenseCents[index] = AmountCents.add(expenseCents[index], cents);
+            }
+            counts[index] += count;
+        }
+
+        /**
+         * 周期型粒度输出全部桶便于绘制热力图，时间序列只输出有账单的桶
+         */
+        List<StatisticsDTO.BucketStat> toStats() {
+            List<StatisticsDTO.BucketStat> stats = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0 && !granularity.isCyclic()) {
+                    continue;
+                }
+                StatisticsDTO.BucketStat stat = new StatisticsDTO.BucketStat();
+                stat.setKey(granularity.label(firstKey + i));
+                stat.setIncome(AmountCents.toAmount(incomeCents[i]));
+                stat.setExpense(AmountCents.toAmount(expenseCents[i]));
+                stat.setCount(counts[i]);
+                stats.add(stat);
+            }
+            return stats;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package cn.nbmly.ai.services;
 
+import cn.nbmly.ai.analytics.BillTotals;
 import cn.nbmly.ai.dto.BillDTO;
 import cn.nbmly.ai.dto.CategoryDTO;
 import cn.nbmly.ai.dto.CategoryRequest;
@@ -16,6 +17,7 @@ import org.springframework.ai.tool.annotation.ToolParam;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.Authentication;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Slf4j
@@ -220,16 +222,18 @@ public class BillTools {
     /**
      * 获取账单统计
      */
-    @Tool(description = "获取当前用户的账单统计信息")
-    public String getBillStatistics() {
+    @Tool(description = "获取当前用户的账单统计信息，可按时间范围统计")
+    public String getBillStatistics(
+            @ToolParam(description = "时间范围，如'本月'、'上周'、'最近7天'、'去年'，不填为全部", required = false) String period) {
         try {
             Long userId = getCurrentUserId();
             log.info("=== BillTools.getBillStatistics 被调用 ===");
+            log.info("时间范围: {}", period);
             log.info("用户ID: {}", userId);
             System.out.println("=== BillTools.getBillStatistics 被调用 ===");
             System.out.println("用户ID: " + userId);
             
-            String result = aiBillService.getBillStatistics(userId);
+            String result = aiBillService.getBillStatistics(userId, period);
             log.info("获取账单统计成功: {}", result);
             System.out.println("获取账单统计成功: " + result);
             return result;
@@ -289,7 +293,7 @@ public class BillTools {
             System.out.println("用户ID: " + userId);
             
             // 先删除该分类下的所有账单
-            List<BillDTO> deletedBills = aiBillService.deleteBillsByCategory(categoryName, userId);
+            int deletedCount = aiBillService.deleteBillsByCategory(categoryName, userId, false);
             
             // 再删除分类本身
             List<CategoryDTO> categories = categoryService.getCategoriesByUser(userId);
@@ -300,7 +304,7 @@ public class BillTools {
             
             categoryService.deleteCategory(targetCat.getId(), userId);
             
-            String result = String.format("已删除分类 '%s' 以及相关账单 %d 条", categoryName, deletedBills.size());
+            String result = String.format("已删除分类 '%s' 以及相关账单 %d 条", categoryName, deletedCount);
             log.info("删除分类成功: {}", result);
             System.out.println("删除分类成功: " + result);
             return result;
@@ -393,6 +397,27 @@ public class BillTools {
         }
     }
 
+    /**
+     * 按自然语言时间表达查询账单
+     */
+    @Tool(description = "按自然语言时间表达查询账单，支持'今天'、'上周'、'本月'、'上个月'、'最近7天'、'去年'、'3月5日'、'3月5日到3月10日'等，无需先换算成日期")
+    public List<BillDTO> queryBillsByPeriod(
+            @ToolParam(description = "时间表达，如'上个月'") String period) {
+        try {
+            Long userId = getCurrentUserId();
+            log.info("=== BillTools.queryBillsByPeriod 被调用 ===");
+            log.info("时间范围: {}", period);
+            log.info("用户ID: {}", userId);
+            
+            List<BillDTO> result = aiBillService.queryBillsByPeriod(period, userId);
+            log.info("按时间表达查询账单成功，共{}条", result.size());
+            return result;
+        } catch (Exception e) {
+            log.error("按时间表达查询账单失败", e);
+            throw new RuntimeException("按时间表达查询账单失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 按金额范围查询账单
      */
@@ -411,8 +436,9 @@ public class BillTools {
             System.out.println("最大金额: " + maxAmount);
             System.out.println("用户ID: " + userId);
             
-            String query = String.format("金额范围：%.2f 到 %.2f", minAmount, maxAmount);
-            List<BillDTO> result = aiBillService.queryBills(query, userId);
+            List<BillDTO> result = aiBillService.queryBillsByAmountRange(
+                    minAmount != null ? BigDecimal.valueOf(minAmount) : null,
+                    maxAmount != null ? BigDecimal.valueOf(maxAmount) : null, userId);
             log.info("按金额范围查询账单成功，共{}条", result.size());
             System.out.println("按金额范围查询账单成功，共" + result.size() + "条");
             return result;
@@ -457,26 +483,26 @@ public class BillTools {
     /**
      * 批量删除账单
      */
-    @Tool(description = "批量删除指定条件的账单")
+    @Tool(description = "批量删除指定条件的账单，dryRun为true时只返回将被删除的账单数量，不实际删除")
     public String batchDeleteBills(
-            @ToolParam(description = "删除条件，如'餐饮支出'") String condition) {
+            @ToolParam(description = "删除条件，如'餐饮支出'") String condition,
+            @ToolParam(description = "是否仅预览删除数量，默认false", required = false) Boolean dryRun) {
         try {
             Long userId = getCurrentUserId();
+            boolean preview = Boolean.TRUE.equals(dryRun);
             log.info("=== BillTools.batchDeleteBills 被调用 ===");
             log.info("删除条件: {}", condition);
+            log.info("仅预览: {}", preview);
             log.info("用户ID: {}", userId);
             System.out.println("=== BillTools.batchDeleteBills 被调用 ===");
             System.out.println("删除条件: " + condition);
             System.out.println("用户ID: " + userId);
             
-            List<BillDTO> billsToDelete = aiBillService.queryBills(condition, userId);
-            int count = 0;
-            for (BillDTO bill : billsToDelete) {
-                aiBillService.deleteBill(bill.getId(), userId);
-                count++;
-            }
+            int count = aiBillService.batchDeleteBills(condition, userId, preview);
             
-            String result = String.format("批量删除成功，共删除 %d 条账单", count);
+            String result = preview
+                    ? String.format("符合条件的账单共 %d 条，尚未删除", count)
+                    : String.format("批量删除成功，共删除 %d 条账单", count);
             log.info("批量删除账单成功: {}", result);
             System.out.println("批量删除账单成功: " + result);
             return result;
@@ -490,21 +516,21 @@ public class BillTools {
     /**
      * 获取收入统计
      */
-    @Tool(description = "获取收入统计信息")
-    public String getIncomeStatistics() {
+    @Tool(description = "获取收入统计信息，可按时间范围统计")
+    public String getIncomeStatistics(
+            @ToolParam(description = "时间范围，如'本月'、'上周'、'最近7天'、'去年'，不填为全部", required = false) String period) {
         try {
             Long userId = getCurrentUserId();
             log.info("=== BillTools.getIncomeStatistics 被调用 ===");
+            log.info("时间范围: {}", period);
             log.info("用户ID: {}", userId);
             System.out.println("=== BillTools.getIncomeStatistics 被调用 ===");
             System.out.println("用户ID: " + userId);
             
-            List<BillDTO> bills = aiBillService.queryBills("收入", userId);
-            double totalIncome = bills.stream()
-                    .mapToDouble(bill -> bill.getAmount().doubleValue())
-                    .sum();
+            BillTotals totals = aiBillService.getBillTotals(userId, "income", period);
             
-            String result = String.format("收入统计：\n总收入：%.2f元\n收入笔数：%d笔", totalIncome, bills.size());
+            String result = String.format("收入统计：\n总收入：%.2f元\n收入笔数：%d笔",
+                    totals.getIncome(), totals.getCount());
             log.info("获取收入统计成功: {}", result);
             System.out.println("获取收入统计成功: " + result);
             return result;
@@ -518,21 +544,21 @@ public class BillTools {
     /**
      * 获取支出统计
      */
-    @Tool(description = "获取支出统计信息")
-    public String getExpenseStatistics() {
+    @Tool(description = "获取支出统计信息，可按时间范围统计")
+    public String getExpenseStatistics(
+            @ToolParam(description = "时间范围，如'本月'、'上周'、'最近7天'、'去年'，不填为全部", required = false) String period) {
         try {
             Long userId = getCurrentUserId();
             log.info("=== BillTools.getExpenseStatistics 被调用 ===");
+            log.info("时间范围: {}", period);
             log.info("用户ID: {}", userId);
             System.out.println("=== BillTools.getExpenseStatistics 被调用 ===");
             System.out.println("用户ID: " + userId);
             
-            List<BillDTO> bills = aiBillService.queryBills("支出", userId);
-            double totalExpense = bills.stream()
-                    .mapToDouble(bill -> bill.getAmount().doubleValue())
-                    .sum();
+            BillTotals totals = aiBillService.getBillTotals(userId, "expense", period);
             
-            String result = String.format("支出统计：\n总支出：%.2f元\n支出笔数：%d笔", totalExpense, bills.size());
+            String result = String.format("支出统计：\n总支出：%.2f元\n支出笔数：%d笔",
+                    totals.getExpense(), totals.getCount());
             log.info("获取支出统计成功: {}", result);
             System.out.println("获取支出统计成功: " + result);
             return result;
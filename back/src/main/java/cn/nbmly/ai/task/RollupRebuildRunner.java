@@ -0,0 +1,46 @@
+package cn.nbmly.ai.task;
+
+import cn.nbmly.ai.service.BillRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 启动时按账单表全量重建日汇总与金额分布。已有账单但汇总表为空（首次升级到汇总统计）时自动执行，
+ * 汇总数据损坏后可通过 bookkeeping.rollup.rebuild-on-startup 强制执行
+ */
+@Slf4j
+@Component
+public class RollupRebuildRunner implements ApplicationRunner {
+
+    private final BillRollupService billRollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean rebuildOnStartup;
+
+    public RollupRebuildRunner(BillRollupService billRollupService, JdbcTemplate jdbcTemplate,
+            @Value("${bookkeeping.rollup.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.billRollupService = billRollupService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup) {
+            log.info("开始重建账单日汇总");
+            billRollupService.rebuildAll();
+        } else if (exists("bill WHERE deleted_at IS NULL")
+                && (!exists("bill_daily_rollup") || !exists("bill_amount_histogram"))) {
+            log.info("已有账单但日汇总或金额分布为空，开始首次构建");
+            billRollupService.rebuildAll();
+        }
+    }
+
+    private boolean exists(String from) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS(SELECT 1 FROM " + from + ")",
+                Boolean.class));
+    }
+}
@@ -0,0 +1,93 @@
+package cn.nbmly.ai.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 依次执行 Hibernate ddl-auto 无法完成的一次性迁移（回填、删列、删旧索引），每步完成后记入 schema_migration，
+ * 之后的启动只做主键查询。中途失败时下次启动从该步重做，每步都是幂等的。
+ * 在全部单例创建后、Web 服务启动前执行，此时实体表结构已更新，且不会有请求写入旧列
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaMigrationRunner implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_migration (name varchar(64) NOT NULL PRIMARY KEY, "
+                + "applied_at datetime NOT NULL)");
+        apply("amount_cents_backfill", this::backfillAmountCents);
+        apply("drop_rollup_total_amount", () -> dropColumn("bill_daily_rollup", "total_amount"));
+        apply("drop_idx_user_type_time_category_amount",
+                () -> dropIndex("bill", "idx_user_type_time_category_amount"));
+        apply("drop_idx_user_type_time_category_cents",
+                () -> dropIndex("bill", "idx_user_type_time_category_cents"));
+    }
+
+    private void apply(String name, Runnable migration) {
+        Integer applied = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_migration WHERE name = ?",
+                Integer.class, name);
+        if (applied != null && applied > 0) {
+            return;
+        }
+        migration.run();
+        jdbcTemplate.update("INSERT INTO schema_migration (name, applied_at) VALUES (?, ?)", name,
+                LocalDateTime.now());
+        log.info("已完成数据迁移 {}", name);
+    }
+
+    private void backfillAmountCents() {
+        long bills = backfill("bill", "amount_cents", "ROUND(amount * 100)");
+        // 新库的日汇总表没有旧的 decimal 合计列，无需回填
+        long rollups = columnExists("bill_daily_rollup", "total_amount")
+                ? backfill("bill_daily_rollup", "total_cents", "ROUND(total_amount * 100)")
+                : 0;
+        log.info("已补齐金额分列：账单{}行，日汇总{}行", bills, rollups);
+    }
+
+    private long backfill(String table, String column, String expression) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        if (maxId == null) {
+            return 0;
+        }
+        String sql = "UPDATE " + table + " SET " + column + " = " + expression
+                + " WHERE id > ? AND id <= ? AND " + column + " <> " + expression;
+        long updated = 0;
+        for (long from = 0; from < maxId; from += BATCH_SIZE) {
+            updated += jdbcTemplate.update(sql, from, from + BATCH_SIZE);
+        }
+        return updated;
+    }
+
+    private void dropColumn(String table, String column) {
+        if (columnExists(table, column)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP COLUMN " + column);
+        }
+    }
+
+    private void dropIndex(String table, String index) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.statistics "
+                + "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?", Integer.class, table,
+                index);
+        if (count != null && count > 0) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DROP INDEX " + index);
+        }
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.columns "
+                + "WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?", Integer.class, table,
+                column);
+        return count != null && count > 0;
+    }
+}
@@ -0,0 +1,67 @@
+package cn.nbmly.ai.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 低峰期分批物理删除已软删除的账单、分类以及过期的删除记录；
+ * 每批单独提交，避免长事务和大范围锁，超出时间预算的部分留到下次
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SoftDeletePurgeTask {
+
+    private static final long PAUSE_MILLIS = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${bookkeeping.purge.retention:7d}")
+    private Duration retention;
+
+    @Value("${bookkeeping.purge.tombstone-retention:30d}")
+    private Duration tombstoneRetention;
+
+    @Value("${bookkeeping.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${bookkeeping.purge.time-budget:10m}")
+    private Duration timeBudget;
+
+    @Scheduled(cron = "${bookkeeping.purge.cron:0 30 3 * * *}")
+    public void purge() {
+        long deadline = System.nanoTime() + timeBudget.toNanos();
+        LocalDateTime now = LocalDateTime.now();
+        int bills = purgeTable("DELETE FROM bill WHERE deleted_at < ? LIMIT ?", now.minus(retention), deadline);
+        int categories = purgeTable("DELETE FROM category WHERE deleted_at < ? LIMIT ?", now.minus(retention),
+                deadline);
+        int tombstones = purgeTable("DELETE FROM bill_tombstone WHERE delete_time < ? LIMIT ?",
+                now.minus(tombstoneRetention), deadline);
+        log.info("软删除清理完成：账单 {} 条，分类 {} 条，删除记录 {} 条", bills, categories, tombstones);
+    }
+
+    private int purgeTable(String sql, LocalDateTime before, long deadline) {
+        int total = 0;
+        while (System.nanoTime() < deadline) {
+            int deleted = jdbcTemplate.update(sql, before, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(PAUSE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,48 @@
+package cn.nbmly.ai.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额的整数分表示。库内与内存汇总都以 long 分累加，只在接口边界转换为 BigDecimal 元
+ */
+public final class AmountCents {
+
+    private AmountCents() {
+    }
+
+    /**
+     * 元转分，多于两位的小数按四舍五入处理，与 decimal(38,2) 列的写入行为一致
+     */
+    public static long of(BigDecimal amount) {
+        try {
+            return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new RuntimeException("金额超出范围");
+        }
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * 带溢出检查的累加
+     */
+    public static long add(long total, long cents) {
+        long sum = total + cents;
+        // 两个加数同号而结果变号即溢出，与 Math.addExact 的判断相同
+        if (((total ^ sum) & (cents ^ sum)) < 0) {
+            throw new RuntimeException("金额合计超出范围");
+        }
+        return sum;
+    }
+
+    public static long subtract(long total, long cents) {
+        long difference = total - cents;
+        if (((total ^ cents) & (total ^ difference)) < 0) {
+            throw new RuntimeException("金额合计超出范围");
+        }
+        return difference;
+    }
+}
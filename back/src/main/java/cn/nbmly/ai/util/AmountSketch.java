@@ -0,0 +1,141 @@
+package cn.nbmly.ai.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * 对数分桶的金额分布草图（DDSketch 思路）：金额 x 落入桶 ceil(log_γ x)，桶内估计值相对误差不超过 1%。
+ * 草图就是「桶号 → 笔数」，两份草图逐桶相加即可合并，删除账单时逐桶相减即可撤销，
+ * 因此可以按用户/日持久化为行，任意日期区间的分位数由 SQL 按桶求和后在此计算
+ */
+public class AmountSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_AMOUNT = 0.01;
+    private static final int[] HISTOGRAM_STEPS = { 1, 2, 5 }; // 直方图按 1-2-5 序列分档
+
+    private final NavigableMap<Integer, Long> counts = new TreeMap<>();
+    private long totalCount;
+
+    public static int bucketOf(BigDecimal amount) {
+        return (int) Math.ceil(Math.log(Math.max(amount.doubleValue(), MIN_AMOUNT)) / LOG_GAMMA);
+    }
+
+    /**
+     * 桶 (γ^(i-1), γ^i] 的估计值，取使相对误差最小的 2γ^i/(γ+1)
+     */
+    public static BigDecimal estimateOf(int bucket) {
+        return BigDecimal.valueOf(2 * Math.pow(GAMMA, bucket) / (GAMMA + 1)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public void add(int bucket, long count) {
+        if (count > 0) {
+            counts.merge(bucket, count, Long::sum);
+            totalCount += count;
+        }
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * q 分位数（0 ≤ q ≤ 1），草图为空时返回 null
+     */
+    public BigDecimal quantile(double q) {
+        if (totalCount == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(q * (totalCount - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            seen += entry.getValue();
+            if (seen > rank) {
+                return estimateOf(entry.getKey());
+            }
+        }
+        return estimateOf(counts.lastKey());
+    }
+
+    /**
+     * 按 1-2-5 档位合并桶的直方图，只包含非空档位。跨越档位边界的桶整体归入边界所在的上一档，
+     * 因此 100、200、500 这类整数金额总落在以它为下界的档位；边界下方 1% 以内的金额可能计入上一档
+     */
+    public List<Bin> histogram() {
+        List<Bin> bins = new ArrayList<>();
+        BigDecimal lower = null;
+        long binCount = 0;
+        for (Map.Entry<Integer, Long> entry : counts.entrySet()) {
+            BigDecimal bucketLower = binLowerBoundOf(entry.getKey());
+            if (lower == null || bucketLower.compareTo(lower) != 0) {
+                if (binCount > 0) {
+                    bins.add(new Bin(lower, binUpperBound(lower), binCount));
+                }
+                lower = bucketLower;
+                binCount = 0;
+            }
+            binCount += entry.getValue();
+        }
+        if (binCount > 0) {
+            bins.add(new Bin(lower, binUpperBound(lower), binCount));
+        }
+        return bins;
+    }
+
+    /**
+     * 桶所属档位的下界：按估计值定档，若桶同时包含上一档的下界（即该下界金额本身落在此桶），改归上一档
+     */
+    private static BigDecimal binLowerBoundOf(int bucket) {
+        BigDecimal lower = binLowerBound(estimateOf(bucket));
+        BigDecimal next = binUpperBound(lower);
+        return bucketOf(next) <= bucket ? next : lower;
+    }
+
+    private static BigDecimal binLowerBound(BigDecimal value) {
+        int exponent = value.precision() - value.scale() - 1; // value 的十进制数量级
+        BigDecimal decade = BigDecimal.ONE.scaleByPowerOfTen(exponent);
+        BigDecimal lower = decade;
+        for (int step : HISTOGRAM_STEPS) {
+            BigDecimal candidate = decade.multiply(BigDecimal.valueOf(step));
+            if (candidate.compareTo(value) <= 0) {
+                lower = candidate;
+            }
+        }
+        return plain(lower.stripTrailingZeros());
+    }
+
+    private static BigDecimal binUpperBound(BigDecimal lower) {
+        BigDecimal normalized = lower.stripTrailingZeros();
+        BigDecimal unscaled = new BigDecimal(normalized.unscaledValue());
+        // 1 → 2 → 5 → 10
+        BigDecimal next = unscaled.compareTo(BigDecimal.ONE) == 0 ? BigDecimal.valueOf(2)
+                : unscaled.compareTo(BigDecimal.valueOf(2)) == 0 ? BigDecimal.valueOf(5) : BigDecimal.TEN;
+        return plain(next.scaleByPowerOfTen(-normalized.scale()).stripTrailingZeros());
+    }
+
+    // 避免 20 被表示为 2E+1
+    private static BigDecimal plain(BigDecimal value) {
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    /**
+     * 直方图档位 [lowerBound, upperBound)，count 在边界附近 1% 以内为近似值
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Bin {
+        private BigDecimal lowerBound;
+        private BigDecimal upperBound;
+        private long count;
+    }
+}
@@ -0,0 +1,316 @@
+package cn.nbmly.ai.util;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * 自然语言记账描述的单遍词法分析：从左到右扫描一次，同时得到金额、货币单位、日期、收支关键词和剩余的备注文本。
+ * 只在结束时为选中的金额和备注各分配一次对象
+ */
+public final class BillDescriptionLexer {
+
+    private static final int INCOME = 1; // 收入类关键词
+    private static final int STRIP = 1 << 1; // 从备注中去除
+    private static final int BUY = 1 << 2;
+    private static final int SALARY = 1 << 3;
+    private static final int MEAL = 1 << 4;
+    private static final int TRANSPORT = 1 << 5;
+
+    private static final String[] UNITS = { "块钱", "块", "元", "RMB", "¥", "￥" };
+
+    // 同一位置按数组顺序匹配，长词须排在以同一字开头的短词之前
+    private static final Keyword[] KEYWORDS = {
+            new Keyword("收入", INCOME | STRIP),
+            new Keyword("赚了", INCOME | STRIP),
+            new Keyword("赚", INCOME),
+            new Keyword("工资", INCOME | STRIP | SALARY),
+            new Keyword("奖金", INCOME | STRIP),
+            new Keyword("投资", INCOME | STRIP),
+            new Keyword("理财", INCOME | STRIP),
+            new Keyword("支出", STRIP),
+            new Keyword("消费", STRIP),
+            new Keyword("购买", STRIP | BUY),
+            new Keyword("支付", STRIP),
+            new Keyword("转账", STRIP),
+            new Keyword("花了", STRIP),
+            new Keyword("买", BUY),
+            new Keyword("吃饭", MEAL),
+            new Keyword("午餐", MEAL),
+            new Keyword("晚餐", MEAL),
+            new Keyword("打车", TRANSPORT),
+            new Keyword("交通", TRANSPORT),
+            new Keyword("今天", STRIP, 0),
+            new Keyword("昨天", STRIP, 1),
+            new Keyword("前天", STRIP, 2),
+    };
+
+    private BillDescriptionLexer() {
+    }
+
+    public static Result lex(String description) {
+        int length = description.length();
+        StringBuilder remarks = new StringBuilder(length);
+        boolean pendingSpace = false;
+        int flags = 0;
+        int daysAgo = -1;
+        LocalDate date = null;
+        // 带单位的金额优先，其次是第一个纯数字；只记录下标，结束时再解析
+        int unitStart = -1;
+        int unitEnd = -1;
+        String unit = null;
+        int plainStart = -1;
+        int plainEnd = -1;
+        int buyStart = -1;
+        int buyEnd = -1;
+
+        int i = 0;
+        while (i < length) {
+            char c = description.charAt(i);
+
+            if (isDigit(c) || ((c == '¥' || c == '￥') && i + 1 < length && isDigit(description.charAt(i + 1)))) {
+                int start = isDigit(c) ? i : i + 1;
+                int end = scanDigits(description, start);
+                if (c != '¥' && c != '￥' && end - start == 4) {
+                    int dateEnd = scanDate(description, end);
+                    if (dateEnd > 0) {
+                        if (date == null) {
+                            date = parseDate(description, start, dateEnd);
+                        }
+                        i = dateEnd;
+                        continue;
+                    }
+                }
+                if (end + 1 < length && description.charAt(end) == '.' && isDigit(description.charAt(end + 1))) {
+                    end = scanDigits(description, end + 1);
+                }
+
+                String matchedUnit = null;
+                int next = end;
+                if (c == '¥' || c == '￥') {
+                    matchedUnit = String.valueOf(c);
+                } else {
+                    int afterSpace = skipSpaces(description, end);
+                    for (String candidate : UNITS) {
+                        if (description.startsWith(candidate, afterSpace)) {
+                            matchedUnit = candidate;
+                            next = afterSpace + candidate.length();
+                            break;
+                        }
+                    }
+                }
+
+                if (matchedUnit != null) {
+                    if (unitStart < 0) {
+                        unitStart = start;
+                        unitEnd = end;
+                        unit = matchedUnit;
+                    }
+                    i = next;
+                    continue;
+                }
+                if (plainStart < 0) {
+                    plainStart = start;
+                    plainEnd = end;
+                }
+                for (int k = i; k < end; k++) {
+                    pendingSpace = appendRemark(remarks, description.charAt(k), pendingSpace);
+                }
+                i = end;
+                continue;
+            }
+
+            Keyword keyword = matchKeyword(description, i);
+            if (keyword != null) {
+                int end = i + keyword.word.length();
+                flags |= keyword.flags;
+                if (keyword.daysAgo >= 0 && (daysAgo < 0 || keyword.daysAgo < daysAgo)) {
+                    daysAgo = keyword.daysAgo;
+                }
+                if ((keyword.flags & BUY) != 0 && buyStart < 0) {
+                    int wordEnd = scanWord(description, end);
+                    if (wordEnd > end) {
+                        buyStart = end;
+                        buyEnd = wordEnd;
+                    }
+                }
+                if ((keyword.flags & STRIP) == 0) {
+                    for (int k = i; k < end; k++) {
+                        pendingSpace = appendRemark(remarks, description.charAt(k), pendingSpace);
+                    }
+                }
+                i = end;
+                continue;
+            }
+
+            pendingSpace = appendRemark(remarks, c, pendingSpace);
+            i++;
+        }
+
+        Result result = new Result();
+        if (unitStart >= 0) {
+            result.amount = new BigDecimal(description.substring(unitStart, unitEnd));
+            result.currencyUnit = unit;
+        } else if (plainStart >= 0) {
+            result.amount = new BigDecimal(description.substring(plainStart, plainEnd));
+        }
+        result.income = (flags & INCOME) != 0;
+        result.daysAgo = daysAgo;
+        result.date = date;
+        result.remarks = remarks.length() >= 2 ? remarks.toString()
+                : defaultRemarks(flags, description, buyStart, buyEnd);
+        return result;
+    }
+
+    /**
+     * 备注去掉关键词后过短时，按描述中的关键词生成默认备注
+     */
+    private static String defaultRemarks(int flags, String description, int buyStart, int buyEnd) {
+        if ((flags & BUY) != 0) {
+            return buyStart >= 0 ? "购买" + description.substring(buyStart, buyEnd) : "购物消费";
+        }
+        if ((flags & SALARY) != 0) {
+            return "工资收入";
+        }
+        if ((flags & MEAL) != 0) {
+            return "餐饮消费";
+        }
+        if ((flags & TRANSPORT) != 0) {
+            return "交通费用";
+        }
+        return "日常消费";
+    }
+
+    private static Keyword matchKeyword(String description, int index) {
+        char c = description.charAt(index);
+        for (Keyword keyword : KEYWORDS) {
+            if (keyword.word.charAt(0) == c && description.startsWith(keyword.word, index)) {
+                return keyword;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 识别 yyyy年M月d日，yearEnd 为已扫描的四位年份之后的下标，返回日期结束下标，不匹配返回 -1
+     */
+    private static int scanDate(String description, int yearEnd) {
+        int i = yearEnd;
+        if (!charAt(description, i, '年')) {
+            return -1;
+        }
+        int monthEnd = scanDigits(description, i + 1);
+        if (monthEnd - (i + 1) < 1 || monthEnd - (i + 1) > 2 || !charAt(description, monthEnd, '月')) {
+            return -1;
+        }
+        int dayEnd = scanDigits(description, monthEnd + 1);
+        if (dayEnd - (monthEnd + 1) < 1 || dayEnd - (monthEnd + 1) > 2 || !charAt(description, dayEnd, '日')) {
+            return -1;
+        }
+        return dayEnd + 1;
+    }
+
+    private static LocalDate parseDate(String description, int start, int end) {
+        int year = 0;
+        int month = 0;
+        int day = 0;
+        int field = 0;
+        for (int i = start; i < end; i++) {
+            char c = description.charAt(i);
+            if (!isDigit(c)) {
+                field++;
+                continue;
+            }
+            int digit = c - '0';
+            if (field == 0) {
+                year = year * 10 + digit;
+            } else if (field == 1) {
+                month = month * 10 + digit;
+            } else {
+                day = day * 10 + digit;
+            }
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            throw new RuntimeException("无效的日期：" + description.substring(start, end));
+        }
+    }
+
+    private static boolean appendRemark(StringBuilder remarks, char c, boolean pendingSpace) {
+        if (isSpace(c)) {
+            // 连续空白合并为一个，首尾空白丢弃
+            return remarks.length() > 0;
+        }
+        if (pendingSpace) {
+            remarks.append(' ');
+        }
+        remarks.append(c);
+        return false;
+    }
+
+    private static int scanDigits(String description, int index) {
+        while (index < description.length() && isDigit(description.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int scanWord(String description, int index) {
+        while (index < description.length()) {
+            char c = description.charAt(index);
+            if (!(isDigit(c) || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_')) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipSpaces(String description, int index) {
+        while (index < description.length() && isSpace(description.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean charAt(String description, int index, char expected) {
+        return index < description.length() && description.charAt(index) == expected;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    @Getter
+    public static final class Result {
+        private BigDecimal amount; // 未识别到数字时为 null
+        private String currencyUnit; // 金额后的单位，纯数字时为 null
+        private boolean income;
+        private int daysAgo = -1; // 今天/昨天/前天，未出现时为 -1
+        private LocalDate date; // yyyy年M月d日
+        private String remarks;
+    }
+
+    private static final class Keyword {
+        private final String word;
+        private final int flags;
+        private final int daysAgo;
+
+        Keyword(String word, int flags) {
+            this(word, flags, -1);
+        }
+
+        Keyword(String word, int flags, int daysAgo) {
+            this.word = word;
+            this.flags = flags;
+            this.daysAgo = daysAgo;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package cn.nbmly.ai.util;
+
+import lombok.Getter;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 把查询中的中文时间表达解析为 [start, end) 日期区间，供按 bill_time 范围查询使用。
+ * 支持今天/昨天/前天、本周/上周、本月/上个月、今年/去年、最近N天/周/个月/年、yyyy年M月d日、M月d日、yyyy-M-d，
+ * 以及用"到"、"至"连接的两个时间
+ */
+public final class DateRangeParser {
+
+    private static final int DAY = 0;
+    private static final int WEEK = 1;
+    private static final int MONTH = 2;
+    private static final int YEAR = 3;
+
+    // 同一位置按数组顺序匹配，长词须排在以同一字开头的短词之前
+    private static final Relative[] RELATIVES = {
+            new Relative("今天", DAY, 0),
+            new Relative("今日", DAY, 0),
+            new Relative("昨天", DAY, -1),
+            new Relative("昨日", DAY, -1),
+            new Relative("大前天", DAY, -3),
+            new Relative("前天", DAY, -2),
+            new Relative("本周", WEEK, 0),
+            new Relative("本星期", WEEK, 0),
+            new Relative("这周", WEEK, 0),
+            new Relative("这个星期", WEEK, 0),
+            new Relative("这星期", WEEK, 0),
+            new Relative("上周", WEEK, -1),
+            new Relative("上个星期", WEEK, -1),
+            new Relative("上星期", WEEK, -1),
+            new Relative("上一周", WEEK, -1),
+            new Relative("本月", MONTH, 0),
+            new Relative("这个月", MONTH, 0),
+            new Relative("这月", MONTH, 0),
+            new Relative("当月", MONTH, 0),
+            new Relative("上个月", MONTH, -1),
+            new Relative("上一个月", MONTH, -1),
+            new Relative("上月", MONTH, -1),
+            new Relative("今年", YEAR, 0),
+            new Relative("本年", YEAR, 0),
+            new Relative("去年", YEAR, -1),
+            new Relative("前年", YEAR, -2),
+    };
+
+    private static final String[] RECENT_PREFIXES = { "最近", "过去", "近" };
+    private static final String[] CONNECTORS = { "到", "至", "-", "~", "～" };
+    private static final String DIGITS = "零一二两三四五六七八九";
+
+    private DateRangeParser() {
+    }
+
+    /**
+     * 返回文本中第一个时间表达对应的区间，没有时返回 null
+     */
+    public static Range parse(String text, LocalDate today) {
+        if (text == null) {
+            return null;
+        }
+        List<Token> tokens = new ArrayList<>(2);
+        int i = 0;
+        while (i < text.length() && tokens.size() < 2) {
+            Token token = matchAt(text, i, today, tokens.isEmpty() ? null : tokens.get(0));
+            if (token == null) {
+                i++;
+                continue;
+            }
+            tokens.add(token);
+            i = token.end;
+            // 只有紧跟连接词时才继续找区间的结束时间
+            int next = skipConnector(text, i);
+            if (next < 0) {
+                break;
+            }
+            i = next;
+        }
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        Range first = tokens.get(0).range;
+        if (tokens.size() == 2 && tokens.get(1).range.end.isAfter(first.start)) {
+            return new Range(first.start, tokens.get(1).range.end);
+        }
+        return first;
+    }
+
+    private static Token matchAt(String text, int index, LocalDate today, Token previous) {
+        char c = text.charAt(index);
+        for (Relative relative : RELATIVES) {
+            if (relative.word.charAt(0) == c && text.startsWith(relative.word, index)) {
+                return new Token(index + relative.word.length(), relative.resolve(today));
+            }
+        }
+        for (String prefix : RECENT_PREFIXES) {
+            if (text.startsWith(prefix, index)) {
+                Token token = matchRecent(text, index + prefix.length(), today);
+                if (token != null) {
+                    return token;
+                }
+            }
+        }
+        if (isNumeral(c) && (index == 0 || !isNumeral(text.charAt(index - 1)))) {
+            return matchDate(text, index, today, previous);
+        }
+        return null;
+    }
+
+    /**
+     * 最近N天/周/个星期/个月/年，包含今天；N 省略时为 1，如"最近一周"、"近一个月"
+     */
+    private static Token matchRecent(String text, int index, LocalDate today) {
+        long n = 1;
+        int i = index;
+        long[] number = readNumber(text, i);
+        if (number != null) {
+            n = number[0];
+            i = (int) number[1];
+        }
+        if (n <= 0) {
+            return null;
+        }
+        LocalDate end = today.plusDays(1);
+        if (text.startsWith("天", i) || text.startsWith("日", i)) {
+            return new Token(i + 1, new Range(end.minusDays(n), end));
+        }
+        if (text.startsWith("周", i) || text.startsWith("星期", i) || text.startsWith("个星期", i)) {
+            int unitEnd = text.startsWith("周", i) ? i + 1 : (text.startsWith("星期", i) ? i + 2 : i + 3);
+            return new Token(unitEnd, new Range(end.minusWeeks(n), end));
+        }
+        if (text.startsWith("个月", i) || text.startsWith("月", i)) {
+            int unitEnd = text.startsWith("个月", i) ? i + 2 : i + 1;
+            return new Token(unitEnd, new Range(end.minusMonths(n), end));
+        }
+        if (text.startsWith("年", i)) {
+            return new Token(i + 1, new Range(end.minusYears(n), end));
+        }
+        return null;
+    }
+
+    /**
+     * yyyy年M月d日、yyyy年M月、yyyy年、M月d日、M月、yyyy-M-d（或 /、.），
+     * 以及连接词之后省略年月的 d日；日期无效时视为不匹配
+     */
+    private static Token matchDate(String text, int index, LocalDate today, Token previous) {
+        long[] first = readNumber(text, index);
+        if (first == null) {
+            return null;
+        }
+        int i = (int) first[1];
+        try {
+            if (i - index == 4 && i < text.length() && isDigit(text.charAt(index))
+                    && (text.charAt(i) == '-' || text.charAt(i) == '/' || text.charAt(i) == '.')) {
+                char separator = text.charAt(i);
+                long[] month = readDigits(text, i + 1);
+                if (month == null || !charAt(text, (int) month[1], separator)) {
+                    return null;
+                }
+                long[] day = readDigits(text, (int) month[1] + 1);
+                if (day == null) {
+                    return null;
+                }
+                LocalDate date = LocalDate.of((int) first[0], (int) month[0], (int) day[0]);
+                return new Token((int) day[1], new Range(date, date.plusDays(1)));
+            }
+            if (charAt(text, i, '年') && first[0] >= 1000) {
+                int year = (int) first[0];
+                long[] month = readNumber(text, i + 1);
+                if (month == null || !charAt(text, (int) month[1], '月')) {
+                    LocalDate start = LocalDate.of(year, 1, 1);
+                    return new Token(i + 1, new Range(start, start.plusYears(1)));
+                }
+                return matchMonthDay(text, (int) month[1] + 1, year, (int) month[0]);
+            }
+            if (charAt(text, i, '月')) {
+                Token token = matchMonthDay(text, i + 1, today.getYear(), (int) first[0]);
+                // 未写年份且落在今天之后时按去年算，如一月份问"12月5日"
+                if (token.range.start.isAfter(today)) {
+                    token = matchMonthDay(text, i + 1, today.getYear() - 1, (int) first[0]);
+                }
+                return token;
+            }
+            if (previous != null && (charAt(text, i, '日') || charAt(text, i, '号'))) {
+                LocalDate date = previous.range.start.withDayOfMonth((int) first[0]);
+                return new Token(i + 1, new Range(date, date.plusDays(1)));
+            }
+        } catch (DateTimeException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private static Token matchMonthDay(String text, int index, int year, int month) {
+        long[] day = readNumber(text, index);
+        if (day != null && (charAt(text, (int) day[1], '日') || charAt(text, (int) day[1], '号'))) {
+            LocalDate date = LocalDate.of(year, month, (int) day[0]);
+            return new Token((int) day[1] + 1, new Range(date, date.plusDays(1)));
+        }
+        LocalDate start = LocalDate.of(year, month, 1);
+        return new Token(index, new Range(start, start.plusMonths(1)));
+    }
+
+    private static int skipConnector(String text, int index) {
+        int i = skipSpaces(text, index);
+        for (String connector : CONNECTORS) {
+            if (text.startsWith(connector, i)) {
+                return skipSpaces(text, i + connector.length());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 读取阿拉伯数字或不超过两位的中文数字（如"七"、"十五"、"二十"），返回 {数值, 结束下标}
+     */
+    private static long[] readNumber(String text, int index) {
+        if (index >= text.length()) {
+            return null;
+        }
+        if (isDigit(text.charAt(index))) {
+            return readDigits(text, index);
+        }
+        long value = 0;
+        long pending = -1;
+        int i = index;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int digit = DIGITS.indexOf(c);
+            if (digit >= 0) {
+                if (pending >= 0) {
+                    break;
+                }
+                pending = digit == 3 ? 2 : (digit > 3 ? digit - 1 : digit); // "两"与"二"同值
+            } else if (c == '十') {
+                if (value > 0) {
+                    break;
+                }
+                value = (pending < 0 ? 1 : pending) * 10;
+                pending = -1;
+            } else {
+                break;
+            }
+            i++;
+        }
+        if (i == index) {
+            return null;
+        }
+        return new long[] { value + Math.max(pending, 0), i };
+    }
+
+    private static long[] readDigits(String text, int index) {
+        int i = index;
+        long value = 0;
+        while (i < text.length() && isDigit(text.charAt(i)) && i - index < 9) {
+            value = value * 10 + (text.charAt(i) - '0');
+            i++;
+        }
+        return i == index ? null : new long[] { value, i };
+    }
+
+    private static int skipSpaces(String text, int index) {
+        while (index < text.length() && Character.isWhitespace(text.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean charAt(String text, int index, char expected) {
+        return index < text.length() && text.charAt(index) == expected;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumeral(char c) {
+        return isDigit(c) || c == '十' || DIGITS.indexOf(c) >= 0;
+    }
+
+    /**
+     * 日期区间 [start, end)
+     */
+    @Getter
+    public static final class Range {
+        private final LocalDate start;
+        private final LocalDate end;
+
+        public Range(LocalDate start, LocalDate end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public LocalDateTime getStartTime() {
+            return start.atStartOfDay();
+        }
+
+        public LocalDateTime getEndTime() {
+            return end.atStartOfDay();
+        }
+    }
+
+    private static final class Token {
+        private final int end;
+        private final Range range;
+
+        Token(int end, Range range) {
+            this.end = end;
+            this.range = range;
+        }
+    }
+
+    private static final class Relative {
+        private final String word;
+        private final int unit;
+        private final int offset;
+
+        Relative(String word, int unit, int offset) {
+            this.word = word;
+            this.unit = unit;
+            this.offset = offset;
+        }
+
+        Range resolve(LocalDate today) {
+            switch (unit) {
+                case WEEK: {
+                    LocalDate start = today.with(DayOfWeek.MONDAY).plusWeeks(offset);
+                    return new Range(start, start.plusWeeks(1));
+                }
+                case MONTH: {
+                    LocalDate start = today.withDayOfMonth(1).plusMonths(offset);
+                    return new Range(start, start.plusMonths(1));
+                }
+                case YEAR: {
+                    LocalDate start = today.withDayOfYear(1).plusYears(offset);
+                    return new Range(start, start.plusYears(1));
+                }
+                default: {
+                    LocalDate start = today.plusDays(offset);
+                    return new Range(start, start.plusDays(1));
+                }
+            }
+        }
+    }
+}
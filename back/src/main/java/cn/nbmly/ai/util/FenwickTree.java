@@ -0,0 +1,57 @@
+package cn.nbmly.ai.util;
+
+/**
+ * 树状数组（Fenwick Tree），单点增量与前缀和均为 O(log n)，下标从 0 开始
+ */
+public class FenwickTree {
+
+    private final long[] tree;
+
+    public FenwickTree(int size) {
+        this.tree = new long[size + 1];
+    }
+
+    /**
+     * 由逐点取值 O(n) 建树
+     */
+    public static FenwickTree of(long[] values) {
+        FenwickTree fenwick = new FenwickTree(values.length);
+        long[] tree = fenwick.tree;
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        return fenwick;
+    }
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    public void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * [0, end) 的和
+     */
+    public long prefixSum(int end) {
+        long sum = 0;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * [start, end) 的和
+     */
+    public long rangeSum(int start, int end) {
+        return start >= end ? 0 : prefixSum(end) - prefixSum(start);
+    }
+}
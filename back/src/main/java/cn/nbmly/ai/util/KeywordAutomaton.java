@@ -0,0 +1,227 @@
+package cn.nbmly.ai.util;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Aho-Corasick 多模式匹配自动机，构建后只读、可并发使用。一次线性扫描找出文本中所有关键词的出现位置，
+ * 重叠时取最左、最长的一个
+ */
+public final class KeywordAutomaton<T> {
+
+    // 每个节点的子节点按字符排序存放，二分查找
+    private final char[][] childChars;
+    private final int[][] childNodes;
+    private final int[] fail;
+    private final int[] pattern; // 以该节点结尾的关键词下标，-1 表示无
+    private final int[] output; // 沿失配链最近的、以关键词结尾的节点，-1 表示无
+    private final int[] lengths;
+    private final T[] values;
+
+    private KeywordAutomaton(char[][] childChars, int[][] childNodes, int[] fail, int[] pattern, int[] output,
+            int[] lengths, T[] values) {
+        this.childChars = childChars;
+        this.childNodes = childNodes;
+        this.fail = fail;
+        this.pattern = pattern;
+        this.output = output;
+        this.lengths = lengths;
+        this.values = values;
+    }
+
+    /**
+     * 按插入顺序构建，重复的关键词保留先出现的值，空关键词忽略
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> KeywordAutomaton<T> build(Map<String, T> keywords) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> patternOf = new ArrayList<>();
+        trie.add(new HashMap<>());
+        patternOf.add(-1);
+        List<Integer> lengths = new ArrayList<>();
+        List<T> values = new ArrayList<>();
+
+        for (Map.Entry<String, T> entry : keywords.entrySet()) {
+            String word = entry.getKey();
+            if (word == null || word.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < word.length(); i++) {
+                Integer next = trie.get(node).get(word.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(node).put(word.charAt(i), next);
+                    trie.add(new HashMap<>());
+                    patternOf.add(-1);
+                }
+                node = next;
+            }
+            if (patternOf.get(node) < 0) {
+                patternOf.set(node, values.size());
+                lengths.add(word.length());
+                values.add(entry.getValue());
+            }
+        }
+
+        int size = trie.size();
+        char[][] childChars = new char[size][];
+        int[][] childNodes = new int[size][];
+        int[] pattern = new int[size];
+        for (int node = 0; node < size; node++) {
+            Map<Character, Integer> children = trie.get(node);
+            char[] chars = new char[children.size()];
+            int k = 0;
+            for (Character c : children.keySet()) {
+                chars[k++] = c;
+            }
+            Arrays.sort(chars);
+            int[] nodes = new int[chars.length];
+            for (k = 0; k < chars.length; k++) {
+                nodes[k] = children.get(chars[k]);
+            }
+            childChars[node] = chars;
+            childNodes[node] = nodes;
+            pattern[node] = patternOf.get(node);
+        }
+
+        // 广度优先计算失配链与输出链，父节点总是先于子节点处理
+        int[] fail = new int[size];
+        int[] output = new int[size];
+        output[0] = -1;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : childNodes[0]) {
+            fail[child] = 0;
+            output[child] = pattern[child] >= 0 ? child : -1;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int k = 0; k < childChars[node].length; k++) {
+                char c = childChars[node][k];
+                int child = childNodes[node][k];
+                int f = fail[node];
+                int target = step(childChars, childNodes, f, c);
+                while (target < 0 && f != 0) {
+                    f = fail[f];
+                    target = step(childChars, childNodes, f, c);
+                }
+                fail[child] = target < 0 ? 0 : target;
+                output[child] = pattern[child] >= 0 ? child : output[fail[child]];
+                queue.add(child);
+            }
+        }
+
+        int[] lengthArray = new int[lengths.size()];
+        for (int i = 0; i < lengthArray.length; i++) {
+            lengthArray[i] = lengths.get(i);
+        }
+        return new KeywordAutomaton<>(childChars, childNodes, fail, pattern, output, lengthArray,
+                (T[]) values.toArray());
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * 文本中所有互不重叠的关键词出现，从左到右；同一起点取最长的关键词，filter 为 null 时不过滤
+     */
+    public List<Match<T>> findAll(String text, Predicate<T> filter) {
+        List<Match<T>> matches = new ArrayList<>();
+        int[] longest = scan(text, filter);
+        if (longest == null) {
+            return matches;
+        }
+        int i = 0;
+        while (i < text.length()) {
+            int id = longest[i] - 1;
+            if (id < 0) {
+                i++;
+                continue;
+            }
+            matches.add(new Match<>(i, i + lengths[id], values[id]));
+            i += lengths[id];
+        }
+        return matches;
+    }
+
+    /**
+     * 文本中最长的一个关键词出现，长度相同时取最左边的，没有时返回 null
+     */
+    public Match<T> findLongest(String text, Predicate<T> filter) {
+        int[] longest = scan(text, filter);
+        if (longest == null) {
+            return null;
+        }
+        int best = -1;
+        int bestStart = -1;
+        for (int i = 0; i < longest.length; i++) {
+            int id = longest[i] - 1;
+            if (id >= 0 && (best < 0 || lengths[id] > lengths[best])) {
+                best = id;
+                bestStart = i;
+            }
+        }
+        return best < 0 ? null : new Match<>(bestStart, bestStart + lengths[best], values[best]);
+    }
+
+    /**
+     * 单遍扫描，返回每个起点上最长关键词的下标加一（0 表示无）；没有任何匹配时返回 null
+     */
+    private int[] scan(String text, Predicate<T> filter) {
+        if (text == null || values.length == 0) {
+            return null;
+        }
+        int[] longest = null;
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = step(childChars, childNodes, node, c);
+            while (next < 0 && node != 0) {
+                node = fail[node];
+                next = step(childChars, childNodes, node, c);
+            }
+            node = next < 0 ? 0 : next;
+            for (int out = output[node]; out >= 0; out = output[fail[out]]) {
+                int id = pattern[out];
+                if (filter != null && !filter.test(values[id])) {
+                    continue;
+                }
+                int start = i + 1 - lengths[id];
+                if (longest == null) {
+                    longest = new int[text.length()];
+                }
+                if (longest[start] == 0 || lengths[longest[start] - 1] < lengths[id]) {
+                    longest[start] = id + 1;
+                }
+            }
+        }
+        return longest;
+    }
+
+    private static int step(char[][] childChars, int[][] childNodes, int node, char c) {
+        int k = Arrays.binarySearch(childChars[node], c);
+        return k < 0 ? -1 : childNodes[node][k];
+    }
+
+    @Getter
+    public static final class Match<T> {
+        private final int start; // 起始下标（含）
+        private final int end; // 结束下标（不含）
+        private final T value;
+
+        Match(int start, int end, T value) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package cn.nbmly.ai.benchmark;
+
+import cn.nbmly.ai.util.AmountCents;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * 金额汇总的三种实现对比：BigDecimal 逐笔相加、double 相加与 long 分累加（带溢出检查）。
+ * 不随测试执行，编译测试代码后运行：
+ * java -cp target/classes:target/test-classes cn.nbmly.ai.benchmark.AmountAggregationBenchmark [行数]
+ */
+public class AmountAggregationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int MEASURE_ROUNDS = 20;
+
+    // 保存每轮结果，避免被 JIT 当作无用计算消除
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Random random = new Random(42);
+        long[] cents = new long[rows];
+        BigDecimal[] amounts = new BigDecimal[rows];
+        for (int i = 0; i < rows; i++) {
+            cents[i] = 1 + random.nextInt(10_000_00); // 0.01 ~ 10000.00 元
+            amounts[i] = BigDecimal.valueOf(cents[i], 2);
+        }
+
+        BigDecimal exact = sumBigDecimal(amounts);
+        System.out.printf("行数：%d，精确合计：%s%n", rows, exact);
+        System.out.printf("BigDecimal 相加：%8.3f ms/次%n", measure(() -> sumBigDecimal(amounts)));
+        System.out.printf("double 相加：    %8.3f ms/次，结果 %.2f，误差 %s%n", measure(() -> sumDouble(amounts)),
+                sumDouble(amounts), BigDecimal.valueOf(sumDouble(amounts)).subtract(exact).abs());
+        System.out.printf("long 分累加：    %8.3f ms/次，结果 %s%n", measure(() -> sumCents(cents)),
+                AmountCents.toAmount(sumCents(cents)));
+    }
+
+    private static BigDecimal sumBigDecimal(BigDecimal[] amounts) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal amount : amounts) {
+            sum = sum.add(amount);
+        }
+        return sum;
+    }
+
+    private static double sumDouble(BigDecimal[] amounts) {
+        double sum = 0;
+        for (BigDecimal amount : amounts) {
+            sum += amount.doubleValue();
+        }
+        return sum;
+    }
+
+    private static long sumCents(long[] cents) {
+        long sum = 0;
+        for (long value : cents) {
+            sum = AmountCents.add(sum, value);
+        }
+        return sum;
+    }
+
+    private static double measure(Supplier<Object> task) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            sink = task.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            sink = task.get();
+        }
+        return (System.nanoTime() - start) / 1e6 / MEASURE_ROUNDS;
+    }
+}
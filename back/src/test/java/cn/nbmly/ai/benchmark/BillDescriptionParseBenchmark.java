@@ -0,0 +1,166 @@
+package cn.nbmly.ai.benchmark;
+
+import cn.nbmly.ai.util.BillDescriptionLexer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 记账描述解析对比：原先的多遍正则/contains 解析与单遍词法分析（不含分类匹配）。
+ * 不随测试执行，编译测试代码后运行：
+ * java -cp target/classes:target/test-classes:... cn.nbmly.ai.benchmark.BillDescriptionParseBenchmark [轮数]
+ */
+public class BillDescriptionParseBenchmark {
+
+    private static final int WARMUP_ROUNDS = 20;
+
+    private static final String[] CORPUS = {
+            "今天午餐花了35元",
+            "昨天打车28.5块",
+            "前天买咖啡 18 元",
+            "收到工资8500元",
+            "这个月奖金2000块钱",
+            "理财收益 126.37 元",
+            "2024年3月15日 超市购物 236.8元",
+            "晚餐和同事聚餐人均 88 元",
+            "支付宝转账给房东3200元 房租",
+            "地铁通勤 4元",
+            "买book 59元",
+            "今天加油 300 RMB",
+            "昨天看电影两张票 98元",
+            "投资分红 1500元",
+            "早餐包子豆浆 7.5元",
+            "2023年12月31日 跨年聚会 520元",
+            "交通卡充值100元",
+            "花了 42 块买水果",
+            "赚了 300 元外快",
+            "消费 12.9 元 奶茶",
+            "网购衣服 ¥199",
+            "话费充值 50",
+            "今天吃饭 26 元",
+            "前天 医院挂号 25元 药费 68元",
+            "给妈妈买生日礼物 888 元",
+    };
+
+    // 保存每轮结果，避免被 JIT 当作无用计算消除
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        int differences = 0;
+        for (String description : CORPUS) {
+            LegacyResult legacy = legacyParse(description);
+            BillDescriptionLexer.Result tokens = BillDescriptionLexer.lex(description);
+            if (!Objects.equals(legacy.amount, tokens.getAmount()) || legacy.income != tokens.isIncome()
+                    || legacy.daysAgo != tokens.getDaysAgo() || !Objects.equals(legacy.date, tokens.getDate())
+                    || !legacy.remarks.equals(tokens.getRemarks())) {
+                differences++;
+                System.out.printf("结果不同：%s%n  原解析：%s %s %d %s [%s]%n  单遍：  %s %s %d %s [%s]%n", description,
+                        legacy.amount, legacy.income, legacy.daysAgo, legacy.date, legacy.remarks,
+                        tokens.getAmount(), tokens.isIncome(), tokens.getDaysAgo(), tokens.getDate(),
+                        tokens.getRemarks());
+            }
+        }
+        System.out.printf("语料 %d 句，结果不同 %d 句%n", CORPUS.length, differences);
+
+        int sentences = rounds * CORPUS.length;
+        System.out.printf("原多遍解析：%8.1f ns/句%n", measure(rounds, () -> {
+            Object last = null;
+            for (String description : CORPUS) {
+                last = legacyParse(description);
+            }
+            return last;
+        }) / sentences);
+        System.out.printf("单遍词法：  %8.1f ns/句%n", measure(rounds, () -> {
+            Object last = null;
+            for (String description : CORPUS) {
+                last = BillDescriptionLexer.lex(description);
+            }
+            return last;
+        }) / sentences);
+    }
+
+    private static double measure(int rounds, Supplier<Object> task) {
+        for (int i = 0; i < WARMUP_ROUNDS * 1000; i++) {
+            sink = task.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            sink = task.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 原 AiBillServiceImpl 中 extractAmount / extractType / extractRemarks / extractTime 的逻辑，
+     * 每次调用都重新编译正则，与原实现一致
+     */
+    private static LegacyResult legacyParse(String description) {
+        LegacyResult result = new LegacyResult();
+
+        Matcher matcher = Pattern.compile("(\\d+(\\.\\d+)?)\\s*(元|块|块钱|RMB|¥)").matcher(description);
+        if (matcher.find()) {
+            result.amount = new BigDecimal(matcher.group(1));
+        } else {
+            matcher = Pattern.compile("(\\d+(\\.\\d+)?)").matcher(description);
+            if (matcher.find()) {
+                result.amount = new BigDecimal(matcher.group(1));
+            }
+        }
+
+        result.income = description.contains("收入") || description.contains("赚") || description.contains("工资")
+                || description.contains("奖金") || description.contains("投资") || description.contains("理财");
+
+        String remarks = description;
+        remarks = remarks.replaceAll("\\d+(\\.\\d+)?\\s*(元|块|块钱|RMB|¥)", "");
+        remarks = remarks.replaceAll("今天|昨天|前天", "");
+        String[] keywords = { "收入", "支出", "消费", "购买", "支付", "转账", "工资", "奖金", "投资", "理财", "花了", "赚了" };
+        for (String keyword : keywords) {
+            remarks = remarks.replace(keyword, "");
+        }
+        remarks = remarks.replaceAll("\\s+", " ").trim();
+        if (remarks.length() < 2) {
+            if (description.contains("买")) {
+                Matcher buyMatcher = Pattern.compile("买(\\w+)").matcher(description);
+                remarks = buyMatcher.find() ? "购买" + buyMatcher.group(1) : "购物消费";
+            } else if (description.contains("工资")) {
+                remarks = "工资收入";
+            } else if (description.contains("吃饭") || description.contains("午餐") || description.contains("晚餐")) {
+                remarks = "餐饮消费";
+            } else if (description.contains("打车") || description.contains("交通")) {
+                remarks = "交通费用";
+            } else {
+                remarks = "日常消费";
+            }
+        }
+        result.remarks = remarks;
+
+        if (description.contains("今天")) {
+            result.daysAgo = 0;
+        } else if (description.contains("昨天")) {
+            result.daysAgo = 1;
+        } else if (description.contains("前天")) {
+            result.daysAgo = 2;
+        } else {
+            Matcher dateMatcher = Pattern.compile("(\\d{4})年(\\d{1,2})月(\\d{1,2})日").matcher(description);
+            if (dateMatcher.find()) {
+                result.date = LocalDate.of(Integer.parseInt(dateMatcher.group(1)),
+                        Integer.parseInt(dateMatcher.group(2)), Integer.parseInt(dateMatcher.group(3)));
+            }
+        }
+        return result;
+    }
+
+    private static final class LegacyResult {
+        private BigDecimal amount;
+        private boolean income;
+        private int daysAgo = -1;
+        private LocalDate date;
+        private String remarks;
+    }
+}
@@ -0,0 +1,135 @@
+package cn.nbmly.ai.intent;
+
+import cn.nbmly.ai.service.StubCategoryMatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatIntentRouterTest {
+
+    private static final String PADDING = "甲乙丙丁戊己庚辛壬癸";
+
+    // 用户只有"餐饮"分类，午餐、吃饭为其同义词
+    private static final StubCategoryMatcher MATCHER = new StubCategoryMatcher().category(1L, "餐饮", "午餐", "吃饭");
+
+    private final ChatIntentRouter router = new ChatIntentRouter(MATCHER, true, 0.8);
+
+    /**
+     * 消息, 意图, 置信度
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "帮助, HELP, 0.95",
+            "help, HELP, 0.95",
+            "查看我的分类, VIEW_CATEGORIES, 0.95",
+            "添加一个奖金的收入分类, CREATE_CATEGORY, 0.9",
+            "查看账单统计, VIEW_STATISTICS, 0.9",
+            "查看今天的账单, QUERY_BILLS, 0.85",
+            "我今天吃饭花了多少钱, QUERY_BILLS, 0.85",
+            "今天花了100元买午餐, CREATE_BILL, 0.9",
+            "收入5000元工资, CREATE_BILL, 0.9",
+            "昨天消费200元打车, CREATE_BILL, 0.9",
+            // 只有金额和分类时置信度 0.8，恰好达到阈值
+            "午餐35元, CREATE_BILL, 0.8",
+            "删除账单12, DELETE_BILL, 0.9",
+            "删除 12 号账单, DELETE_BILL, 0.9",
+    })
+    void routesUnambiguousMessages(String message, ChatIntent intent, double confidence) {
+        ChatRoute route = router.route(message, 1L);
+
+        assertEquals(intent, route.getIntent(), message);
+        assertEquals(confidence, route.getConfidence(), 1e-9, message);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // 指代、修改和开放式提问交给大模型
+            "删除刚才那个账单",
+            "删除第2个账单",
+            "修改账单123为200元",
+            "帮我分析一下这个月的消费",
+            "可以帮我记一笔吗",
+            // 删除账单必须带明确的账单ID，删除分类不在本地执行
+            "删除账单",
+            "删除所有账单",
+            "删除分类餐饮",
+            "删除账单99999999999999999999",
+            // 记账必须有带单位的金额
+            "今天花了100",
+            "午餐35",
+            "买了一杯咖啡",
+            "你好",
+    })
+    void leavesAmbiguousMessagesToLlm(String message) {
+        ChatRoute route = router.route(message, 1L);
+
+        assertEquals(ChatIntent.UNKNOWN, route.getIntent(), message);
+        assertNull(route.getBillId(), message);
+        assertNull(route.getCategoryName(), message);
+    }
+
+    @Test
+    void fillsParametersOfWinningIntentOnly() {
+        ChatRoute delete = router.route("删除12号账单", 1L);
+        assertEquals(Long.valueOf(12), delete.getBillId());
+        assertNull(delete.getCategoryName());
+        assertFalse(delete.isSummary());
+
+        ChatRoute category = router.route("添加一个奖金的收入分类", 1L);
+        assertEquals("奖金", category.getCategoryName());
+        assertEquals("income", category.getCategoryType());
+        assertNull(category.getBillId());
+
+        assertEquals("expense", router.route("新增分类 宠物", 1L).getCategoryType());
+        assertTrue(router.route("我今天吃饭花了多少钱", 1L).isSummary());
+        assertFalse(router.route("查看今天的账单", 1L).isSummary());
+    }
+
+    @Test
+    void dropsParametersWhenBelowThreshold() {
+        ChatIntentRouter strict = new ChatIntentRouter(MATCHER, true, 0.95);
+
+        ChatRoute category = strict.route("添加一个奖金的收入分类", 1L);
+        assertEquals(ChatIntent.UNKNOWN, category.getIntent());
+        assertEquals(0.9, category.getConfidence(), 1e-9);
+        assertNull(category.getCategoryName());
+        assertNull(category.getCategoryType());
+
+        ChatRoute delete = strict.route("删除账单12", 1L);
+        assertEquals(ChatIntent.UNKNOWN, delete.getIntent());
+        assertNull(delete.getBillId());
+
+        assertEquals(ChatIntent.HELP, strict.route("帮助", 1L).getIntent());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // 超过 40 字后每满 20 字扣 0.1，基础消息 12 字，每份填充 10 字
+            "0, CREATE_BILL, 0.9",
+            "4, CREATE_BILL, 0.9",
+            "5, CREATE_BILL, 0.8",
+            "7, UNKNOWN, 0.7",
+    })
+    void discountsLongMessages(int paddingRepeats, ChatIntent intent, double confidence) {
+        String message = "今天花了100元买午餐" + PADDING.repeat(paddingRepeats);
+        ChatRoute route = router.route(message, 1L);
+
+        assertEquals(intent, route.getIntent(), message);
+        assertEquals(confidence, route.getConfidence(), 1e-9, message);
+    }
+
+    @Test
+    void returnsUnknownWhenDisabledOrBlank() {
+        ChatIntentRouter disabled = new ChatIntentRouter(MATCHER, false, 0.8);
+        assertEquals(ChatIntent.UNKNOWN, disabled.route("删除账单12", 1L).getIntent());
+        assertEquals(ChatIntent.UNKNOWN, router.route(null, 1L).getIntent());
+        assertEquals(ChatIntent.UNKNOWN, router.route("  ", 1L).getIntent());
+        // 无效日期交给大模型解释
+        assertEquals(ChatIntent.UNKNOWN, router.route("2024年2月30日 午餐 20元", 1L).getIntent());
+    }
+}
@@ -0,0 +1,96 @@
+package cn.nbmly.ai.query;
+
+import cn.nbmly.ai.service.StubCategoryMatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillQueryCompilerTest {
+
+    // 用户只有"餐饮"(1)和"交通"(2)两个分类
+    private final BillQueryCompiler compiler = new BillQueryCompiler(
+            new StubCategoryMatcher().category(1L, "餐饮").category(2L, "交通"));
+
+    /**
+     * 查询, 类型, 分类ID（空格分隔）, 下限, 下限含等, 上限, 上限含等, 条数, 备注关键词, 是否有时间范围
+     */
+    @ParameterizedTest
+    @CsvSource(nullValues = "null", value = {
+            "大于100的餐饮, null, 1, 100, false, null, false, null, null, false",
+            "上周交通支出不超过50元, expense, 2, null, false, 50, true, null, null, true",
+            "50元以上, null, null, 50, true, null, false, null, null, false",
+            "30块以内的支出, expense, null, null, false, 30, true, null, null, false",
+            "低于 30 块, null, null, null, false, 30, false, null, null, false",
+            "大于等于¥20, null, null, 20, true, null, false, null, null, false",
+            "10到50元, null, null, 10, true, 50, true, null, null, false",
+            "50 ~ 10.5, null, null, 10.5, true, 50, true, null, null, false",
+            "最近10笔, null, null, null, false, null, false, 10, null, false",
+            "前5条餐饮, null, 1, null, false, null, false, 5, null, false",
+            "餐饮和交通, null, 1 2, null, false, null, false, null, null, false",
+            "今天的账单, null, null, null, false, null, false, null, null, true",
+            "2024-03-05的账单, null, null, null, false, null, false, null, null, true",
+            "最近7天花了多少, expense, null, null, false, null, false, null, null, true",
+            "所有收入, income, null, null, false, null, false, null, null, false",
+            "收入支出, null, null, null, false, null, false, null, null, false",
+            "咖啡, null, null, null, false, null, false, null, 咖啡, false",
+            "帮我查一下买咖啡的记录, expense, null, null, false, null, false, null, 咖啡, false",
+            "查看我的账单, null, null, null, false, null, false, null, null, false",
+            "删除我的记录, null, null, null, false, null, false, null, null, false",
+    })
+    void compilesQuery(String text, String type, String categoryIds, BigDecimal minAmount, boolean minInclusive,
+            BigDecimal maxAmount, boolean maxInclusive, Integer limit, String remarkKeyword, boolean timed) {
+        BillQuery query = compiler.compile(text, 1L);
+
+        assertEquals(type, query.getType(), text);
+        assertEquals(categoryIds, query.getCategoryIds() == null ? null
+                : query.getCategoryIds().stream().map(String::valueOf).collect(Collectors.joining(" ")), text);
+        assertEquals(minAmount, query.getMinAmount(), text);
+        assertEquals(minInclusive, query.isMinInclusive(), text);
+        assertEquals(maxAmount, query.getMaxAmount(), text);
+        assertEquals(maxInclusive, query.isMaxInclusive(), text);
+        assertEquals(limit, query.getLimit(), text);
+        assertEquals(remarkKeyword, query.getRemarkKeyword(), text);
+        assertEquals(timed, query.getStartTime() != null && query.getEndTime() != null, text);
+    }
+
+    @Test
+    void usesParsedDateRange() {
+        BillQuery query = compiler.compile("2024-03-05到2024-03-07的交通", 1L);
+
+        assertEquals(LocalDateTime.of(2024, 3, 5, 0, 0), query.getStartTime());
+        assertEquals(LocalDateTime.of(2024, 3, 8, 0, 0), query.getEndTime());
+        assertNull(query.getMinAmount());
+        assertNull(query.getMaxAmount());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "大于100, true",
+            "餐饮, true",
+            "支出, true",
+            "最近3条, true",
+            "咖啡, true",
+            "我的账单, false",
+            "所有记录, false",
+            "'', false",
+    })
+    void reportsWhetherAnyFilterIsSet(String text, boolean filtered) {
+        assertEquals(filtered, compiler.compile(text, 1L).hasFilter(), text);
+    }
+
+    @Test
+    void compilesBlankTextToEmptyQuery() {
+        assertFalse(compiler.compile(null, 1L).hasFilter());
+        assertFalse(compiler.compile("   ", 1L).hasFilter());
+        assertTrue(compiler.compile("餐饮", 1L).hasFilter());
+    }
+}
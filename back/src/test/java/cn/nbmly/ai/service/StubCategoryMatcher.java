@@ -0,0 +1,55 @@
+package cn.nbmly.ai.service;
+
+import cn.nbmly.ai.dto.CategoryDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 测试用的固定分类匹配：每个支出分类带若干同义词，文本中提到的分类按首次出现的位置依次返回，不区分用户
+ */
+public class StubCategoryMatcher implements CategoryMatcherService {
+
+    private final Map<CategoryDTO, String[]> keywords = new LinkedHashMap<>();
+
+    public StubCategoryMatcher category(Long id, String name, String... synonyms) {
+        CategoryDTO category = new CategoryDTO();
+        category.setId(id);
+        category.setName(name);
+        category.setType("expense");
+        String[] names = new String[synonyms.length + 1];
+        names[0] = name;
+        System.arraycopy(synonyms, 0, names, 1, synonyms.length);
+        keywords.put(category, names);
+        return this;
+    }
+
+    @Override
+    public List<CategoryDTO> findAll(Long userId, String text) {
+        Map<CategoryDTO, Integer> positions = new LinkedHashMap<>();
+        keywords.forEach((category, names) -> {
+            for (String name : names) {
+                int index = text.indexOf(name);
+                if (index >= 0) {
+                    positions.merge(category, index, Math::min);
+                }
+            }
+        });
+        List<CategoryDTO> categories = new ArrayList<>(positions.keySet());
+        categories.sort(Comparator.comparing(positions::get));
+        return categories;
+    }
+
+    @Override
+    public CategoryDTO findLongest(Long userId, String text, String type) {
+        List<CategoryDTO> categories = findAll(userId, text);
+        return categories.isEmpty() ? null : categories.get(0);
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+    }
+}
@@ -0,0 +1,103 @@
+package cn.nbmly.ai.service.impl;
+
+import cn.nbmly.ai.analytics.BillAnalyticsStore;
+import cn.nbmly.ai.dto.BillDTO;
+import cn.nbmly.ai.query.BillQuery;
+import cn.nbmly.ai.query.BillQueryCompiler;
+import cn.nbmly.ai.repository.BillRepository;
+import cn.nbmly.ai.repository.CategoryRepository;
+import cn.nbmly.ai.service.BillService;
+import cn.nbmly.ai.service.CategoryMatcherService;
+import cn.nbmly.ai.service.CategoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量删除的保护：条件编译后不限定任何账单时，必须写明所有/全部
+ */
+class AiBillServiceImplTest {
+
+    private static final Long USER_ID = 1L;
+
+    private BillService billService;
+    private AiBillServiceImpl aiBillService;
+
+    @BeforeEach
+    void setUp() {
+        billService = mock(BillService.class);
+        CategoryMatcherService categoryMatcherService = mock(CategoryMatcherService.class);
+        aiBillService = new AiBillServiceImpl(billService, mock(CategoryService.class), categoryMatcherService,
+                mock(BillRepository.class), mock(CategoryRepository.class), mock(BillAnalyticsStore.class),
+                new BillQueryCompiler(categoryMatcherService));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "我的账单", "账单", "删除我的记录", "删除我的账单", "  " })
+    void refusesUnfilteredConditionWithoutDeleteAll(String condition) {
+        assertThrows(RuntimeException.class, () -> aiBillService.batchDeleteBills(condition, USER_ID, false));
+        verify(billService, never()).searchBills(anyLong(), any());
+        verify(billService, never()).deleteBillsByIds(any(), anyLong(), anyBoolean());
+    }
+
+    @Test
+    void refusesNullCondition() {
+        assertThrows(RuntimeException.class, () -> aiBillService.batchDeleteBills(null, USER_ID, true));
+        verify(billService, never()).deleteBillsByIds(any(), anyLong(), anyBoolean());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "删除所有账单", "全部记录" })
+    void deletesEverythingWhenConditionSaysSo(String condition) {
+        when(billService.searchBills(eq(USER_ID), any())).thenReturn(List.of(bill(7L), bill(8L)));
+        when(billService.deleteBillsByIds(List.of(7L, 8L), USER_ID, false)).thenReturn(2);
+
+        assertEquals(2, aiBillService.batchDeleteBills(condition, USER_ID, false));
+        ArgumentCaptor<BillQuery> query = ArgumentCaptor.forClass(BillQuery.class);
+        verify(billService).searchBills(eq(USER_ID), query.capture());
+        assertFalse(query.getValue().hasFilter());
+    }
+
+    @Test
+    void deletesFilteredConditionWithoutDeleteAll() {
+        when(billService.searchBills(eq(USER_ID), any())).thenReturn(List.of(bill(3L)));
+        when(billService.deleteBillsByIds(List.of(3L), USER_ID, true)).thenReturn(1);
+
+        assertEquals(1, aiBillService.batchDeleteBills("删除50元以上的支出", USER_ID, true));
+        ArgumentCaptor<BillQuery> query = ArgumentCaptor.forClass(BillQuery.class);
+        verify(billService).searchBills(eq(USER_ID), query.capture());
+        assertTrue(query.getValue().hasFilter());
+        assertEquals("expense", query.getValue().getType());
+    }
+
+    @Test
+    void returnsZeroWithoutDeletingWhenNothingMatches() {
+        when(billService.searchBills(eq(USER_ID), any())).thenReturn(List.of());
+
+        assertEquals(0, aiBillService.batchDeleteBills("备注含火锅", USER_ID, false));
+        verify(billService, never()).deleteBillsByIds(any(), anyLong(), anyBoolean());
+    }
+
+    private static BillDTO bill(Long id) {
+        BillDTO bill = new BillDTO();
+        bill.setId(id);
+        return bill;
+    }
+}
@@ -0,0 +1,103 @@
+package cn.nbmly.ai.service.impl;
+
+import cn.nbmly.ai.dto.AiChatRequest;
+import cn.nbmly.ai.dto.BillDTO;
+import cn.nbmly.ai.dto.ChatMessage;
+import cn.nbmly.ai.entity.User;
+import cn.nbmly.ai.intent.ChatIntentRouter;
+import cn.nbmly.ai.service.AiBillService;
+import cn.nbmly.ai.service.CategoryMatcherService;
+import cn.nbmly.ai.service.CategoryService;
+import cn.nbmly.ai.service.ChatSessionService;
+import cn.nbmly.ai.service.UserService;
+import cn.nbmly.ai.services.BillTools;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 上下文引用：只有"删除第N个"按上一次列出的账单解析，其他指代原样交给大模型
+ */
+class AiChatServiceImplTest {
+
+    private AiBillService aiBillService;
+    private ChatSessionService chatSessionService;
+    private UserService userService;
+    private AiChatServiceImpl aiChatService;
+
+    @BeforeEach
+    void setUp() {
+        aiBillService = mock(AiBillService.class);
+        chatSessionService = mock(ChatSessionService.class);
+        userService = mock(UserService.class);
+        ChatIntentRouter router = new ChatIntentRouter(mock(CategoryMatcherService.class), true, 0.8);
+        aiChatService = new AiChatServiceImpl(aiBillService, chatSessionService, mock(CategoryService.class), router,
+                userService, mock(BillTools.class));
+    }
+
+    @Test
+    void doesNotRewriteThisMonthAfterBillListing() {
+        Long userId = 101L;
+        givenListedBills(userId, 45L, 46L);
+
+        aiChatService.processChat(request(userId, "查看这个月的账单"));
+
+        // "这个"是指代，不在本地执行；若被替换为账单ID，会变成"查看45月的账单"并查出全部账单
+        verify(aiBillService, never()).queryBills(anyString(), anyLong());
+    }
+
+    @Test
+    void resolvesOrdinalDeleteToListedBill() {
+        Long userId = 102L;
+        givenListedBills(userId, 45L, 46L);
+
+        aiChatService.processChat(request(userId, "删除第2个账单"));
+
+        verify(aiBillService).deleteBill(46L, userId);
+    }
+
+    @Test
+    void leavesOrdinalOutOfRangeToLlm() {
+        Long userId = 103L;
+        givenListedBills(userId, 45L);
+
+        aiChatService.processChat(request(userId, "删除第3个"));
+
+        verify(aiBillService, never()).deleteBill(any(), any());
+    }
+
+    private void givenListedBills(Long userId, Long... ids) {
+        User user = new User();
+        user.setId(userId);
+        user.setUsername("user" + userId);
+        when(userService.findById(userId)).thenReturn(user);
+
+        List<BillDTO> bills = new ArrayList<>();
+        for (Long id : ids) {
+            BillDTO bill = new BillDTO();
+            bill.setId(id);
+            bills.add(bill);
+        }
+        ChatMessage listing = new ChatMessage();
+        listing.setType("ai");
+        listing.setData(bills);
+        when(chatSessionService.getRecentMessages(userId, 10)).thenReturn(List.of(listing));
+    }
+
+    private static AiChatRequest request(Long userId, String message) {
+        AiChatRequest request = new AiChatRequest();
+        request.setUserId(userId);
+        request.setMessage(message);
+        return request;
+    }
+}
@@ -0,0 +1,85 @@
+package cn.nbmly.ai.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AmountSketchTest {
+
+    /**
+     * 金额, 档位下界, 档位上界
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "100.00, 100, 200",
+            "200.00, 200, 500",
+            "500.00, 500, 1000",
+            "1000.00, 1000, 2000",
+            "1.00, 1, 2",
+            "0.50, 0.5, 1",
+            "20.00, 20, 50",
+            "99.00, 50, 100",
+            "150.00, 100, 200",
+            "190.00, 100, 200",
+            "35.50, 20, 50",
+    })
+    void placesAmountInItsBin(BigDecimal amount, BigDecimal lower, BigDecimal upper) {
+        AmountSketch sketch = new AmountSketch();
+        sketch.add(AmountSketch.bucketOf(amount), 1);
+
+        List<AmountSketch.Bin> bins = sketch.histogram();
+
+        assertEquals(1, bins.size(), amount.toPlainString());
+        assertEquals(lower, bins.get(0).getLowerBound(), amount.toPlainString());
+        assertEquals(upper, bins.get(0).getUpperBound(), amount.toPlainString());
+    }
+
+    @Test
+    void mergesBucketsOfTheSameBin() {
+        AmountSketch sketch = new AmountSketch();
+        for (String amount : new String[] { "100", "120", "180", "200", "35", "50" }) {
+            sketch.add(AmountSketch.bucketOf(new BigDecimal(amount)), 1);
+        }
+
+        List<AmountSketch.Bin> bins = sketch.histogram();
+
+        assertEquals(4, bins.size());
+        assertBin(bins.get(0), "20", "50", 1);
+        assertBin(bins.get(1), "50", "100", 1);
+        assertBin(bins.get(2), "100", "200", 3);
+        assertBin(bins.get(3), "200", "500", 1);
+    }
+
+    @Test
+    void estimatesQuantilesWithinRelativeAccuracy() {
+        AmountSketch sketch = new AmountSketch();
+        for (int amount = 1; amount <= 100; amount++) {
+            sketch.add(AmountSketch.bucketOf(BigDecimal.valueOf(amount)), 1);
+        }
+
+        assertEquals(100, sketch.getTotalCount());
+        assertEquals(50, sketch.quantile(0.5).doubleValue(), 50 * AmountSketch.RELATIVE_ACCURACY);
+        assertEquals(100, sketch.quantile(1).doubleValue(), 100 * AmountSketch.RELATIVE_ACCURACY);
+        assertEquals(90, sketch.quantile(0.9).doubleValue(), 90 * AmountSketch.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void returnsNothingForEmptySketch() {
+        AmountSketch sketch = new AmountSketch();
+
+        assertNull(sketch.quantile(0.5));
+        assertEquals(0, sketch.histogram().size());
+    }
+
+    private static void assertBin(AmountSketch.Bin bin, String lower, String upper, long count) {
+        assertEquals(new BigDecimal(lower), bin.getLowerBound());
+        assertEquals(new BigDecimal(upper), bin.getUpperBound());
+        assertEquals(count, bin.getCount());
+    }
+}
@@ -0,0 +1,92 @@
+package cn.nbmly.ai.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * 固定 BillDescriptionParseBenchmark 语料的词法分析结果。与原多遍正则解析不同的 4 句单独注明，均为有意修正
+ */
+class BillDescriptionLexerTest {
+
+    static Stream<Arguments> corpus() {
+        // 描述, 金额, 单位, 是否收入, 几天前, 日期, 备注
+        return Stream.of(
+                arguments("今天午餐花了35元", "35", "元", false, 0, null, "午餐"),
+                arguments("昨天打车28.5块", "28.5", "块", false, 1, null, "打车"),
+                arguments("前天买咖啡 18 元", "18", "元", false, 2, null, "买咖啡"),
+                arguments("收到工资8500元", "8500", "元", true, -1, null, "收到"),
+                // 有意不同：块钱整体作为单位，原正则会在备注中留下"钱"
+                arguments("这个月奖金2000块钱", "2000", "块钱", true, -1, null, "这个月"),
+                arguments("理财收益 126.37 元", "126.37", "元", true, -1, null, "收益"),
+                // 有意不同：明确的日期从备注中去除
+                arguments("2024年3月15日 超市购物 236.8元", "236.8", "元", false, -1, LocalDate.of(2024, 3, 15), "超市购物"),
+                arguments("晚餐和同事聚餐人均 88 元", "88", "元", false, -1, null, "晚餐和同事聚餐人均"),
+                arguments("支付宝转账给房东3200元 房租", "3200", "元", false, -1, null, "宝给房东 房租"),
+                arguments("地铁通勤 4元", "4", "元", false, -1, null, "地铁通勤"),
+                arguments("买book 59元", "59", "元", false, -1, null, "买book"),
+                arguments("今天加油 300 RMB", "300", "RMB", false, 0, null, "加油"),
+                arguments("昨天看电影两张票 98元", "98", "元", false, 1, null, "看电影两张票"),
+                arguments("投资分红 1500元", "1500", "元", true, -1, null, "分红"),
+                arguments("早餐包子豆浆 7.5元", "7.5", "元", false, -1, null, "早餐包子豆浆"),
+                // 有意不同：明确的日期从备注中去除
+                arguments("2023年12月31日 跨年聚会 520元", "520", "元", false, -1, LocalDate.of(2023, 12, 31), "跨年聚会"),
+                arguments("交通卡充值100元", "100", "元", false, -1, null, "交通卡充值"),
+                arguments("花了 42 块买水果", "42", "块", false, -1, null, "买水果"),
+                arguments("赚了 300 元外快", "300", "元", true, -1, null, "外快"),
+                arguments("消费 12.9 元 奶茶", "12.9", "元", false, -1, null, "奶茶"),
+                // 有意不同：金额前的 ¥ 作为单位，不留在备注中
+                arguments("网购衣服 ¥199", "199", "¥", false, -1, null, "网购衣服"),
+                arguments("话费充值 50", "50", null, false, -1, null, "话费充值 50"),
+                arguments("今天吃饭 26 元", "26", "元", false, 0, null, "吃饭"),
+                arguments("前天 医院挂号 25元 药费 68元", "25", "元", false, 2, null, "医院挂号 药费"),
+                arguments("给妈妈买生日礼物 888 元", "888", "元", false, -1, null, "给妈妈买生日礼物"));
+    }
+
+    @ParameterizedTest
+    @MethodSource("corpus")
+    void lexesCorpus(String description, String amount, String currencyUnit, boolean income, int daysAgo,
+            LocalDate date, String remarks) {
+        BillDescriptionLexer.Result result = BillDescriptionLexer.lex(description);
+
+        assertEquals(new BigDecimal(amount), result.getAmount(), description);
+        assertEquals(currencyUnit, result.getCurrencyUnit(), description);
+        assertEquals(income, result.isIncome(), description);
+        assertEquals(daysAgo, result.getDaysAgo(), description);
+        assertEquals(date, result.getDate(), description);
+        assertEquals(remarks, result.getRemarks(), description);
+    }
+
+    @Test
+    void treatsFullWidthYuanSignAsUnit() {
+        BillDescriptionLexer.Result result = BillDescriptionLexer.lex("买书￥45.5");
+
+        assertEquals(new BigDecimal("45.5"), result.getAmount());
+        assertEquals("￥", result.getCurrencyUnit());
+        assertEquals("买书", result.getRemarks());
+    }
+
+    @Test
+    void leavesAmountEmptyWithoutDigits() {
+        BillDescriptionLexer.Result result = BillDescriptionLexer.lex("午餐");
+
+        assertNull(result.getAmount());
+        assertNull(result.getCurrencyUnit());
+        assertEquals("午餐", result.getRemarks());
+    }
+
+    @Test
+    void rejectsInvalidDate() {
+        assertThrows(RuntimeException.class, () -> BillDescriptionLexer.lex("2024年2月30日 午餐 20元"));
+    }
+}
@@ -0,0 +1,94 @@
+package cn.nbmly.ai.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DateRangeParserTest {
+
+    // 2024-03-13 是星期三
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 13);
+
+    /**
+     * 文本, 区间起点（含）, 区间终点（不含）
+     */
+    @ParameterizedTest
+    @CsvSource({
+            "今天, 2024-03-13, 2024-03-14",
+            "昨日, 2024-03-12, 2024-03-13",
+            "大前天, 2024-03-10, 2024-03-11",
+            "本周, 2024-03-11, 2024-03-18",
+            "上个星期, 2024-03-04, 2024-03-11",
+            "这个月, 2024-03-01, 2024-04-01",
+            "上个月, 2024-02-01, 2024-03-01",
+            "今年, 2024-01-01, 2025-01-01",
+            "去年, 2023-01-01, 2024-01-01",
+            "最近7天, 2024-03-07, 2024-03-14",
+            "近一个月, 2024-02-14, 2024-03-14",
+            "最近两周, 2024-02-29, 2024-03-14",
+            "过去十五天, 2024-02-28, 2024-03-14",
+            "最近1年, 2023-03-14, 2024-03-14",
+            "最近一个星期, 2024-03-07, 2024-03-14",
+            "2024年3月5日, 2024-03-05, 2024-03-06",
+            "2023年12月, 2023-12-01, 2024-01-01",
+            "2023年, 2023-01-01, 2024-01-01",
+            "3月5号, 2024-03-05, 2024-03-06",
+            "2024-03-05, 2024-03-05, 2024-03-06",
+            "2024/3/5, 2024-03-05, 2024-03-06",
+            "查看上周的餐饮, 2024-03-04, 2024-03-11",
+    })
+    void parsesSingleExpression(String text, LocalDate start, LocalDate end) {
+        assertRange(text, start, end);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // 未写年份且落在今天之后时按去年算
+            "12月5日, 2023-12-05, 2023-12-06",
+            "十二月, 2023-12-01, 2024-01-01",
+            "3月, 2024-03-01, 2024-04-01",
+    })
+    void resolvesYearlessDatesToThePast(String text, LocalDate start, LocalDate end) {
+        assertRange(text, start, end);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "3月5日到3月10日, 2024-03-05, 2024-03-11",
+            "3月5日至10日, 2024-03-05, 2024-03-11",
+            "2024-03-01 ~ 2024-03-03, 2024-03-01, 2024-03-04",
+            "上个月到本月, 2024-02-01, 2024-04-01",
+            // 结束早于开始时只取第一个时间
+            "3月10日到3月5日, 2024-03-10, 2024-03-11",
+            // 没有连接词时只取第一个时间
+            "昨天和今天, 2024-03-12, 2024-03-13",
+    })
+    void joinsTwoExpressionsWithConnector(String text, LocalDate start, LocalDate end) {
+        assertRange(text, start, end);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = { "", "查看我的账单", "午餐35元", "2024年2月30日", "最近0天", "13月" })
+    void returnsNullWithoutValidExpression(String text) {
+        assertNull(DateRangeParser.parse(text, TODAY), text);
+    }
+
+    @Test
+    void returnsNullForNullText() {
+        assertNull(DateRangeParser.parse(null, TODAY));
+    }
+
+    private static void assertRange(String text, LocalDate start, LocalDate end) {
+        DateRangeParser.Range range = DateRangeParser.parse(text, TODAY);
+        assertNotNull(range, text);
+        assertEquals(start, range.getStart(), text);
+        assertEquals(end, range.getEnd(), text);
+    }
+}
@@ -0,0 +1,98 @@
+package cn.nbmly.ai.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeywordAutomatonTest {
+
+    private static final KeywordAutomaton<String> AUTOMATON = KeywordAutomaton.build(keywords());
+
+    private static Map<String, String> keywords() {
+        Map<String, String> keywords = new LinkedHashMap<>();
+        keywords.put("餐", "meal");
+        keywords.put("早餐", "breakfast");
+        keywords.put("餐饮", "food");
+        keywords.put("交通", "traffic");
+        keywords.put("交通卡", "card");
+        keywords.put("he", "he");
+        keywords.put("she", "she");
+        keywords.put("his", "his");
+        keywords.put("hers", "hers");
+        keywords.put("", "empty");
+        keywords.put("奶茶", "tea");
+        return keywords;
+    }
+
+    /**
+     * 匹配结果写作 起点-终点:值，多个以空格分隔
+     */
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "早餐和餐饮|0-2:breakfast 3-5:food",
+            "交通卡充值|0-3:card",
+            "交通费|0-2:traffic",
+            "ushers|1-4:she",
+            "hishers|0-3:his 3-7:hers",
+            "午饭|''",
+            "餐餐|0-1:meal 1-2:meal",
+            "买奶茶和早餐|1-3:tea 4-6:breakfast",
+    })
+    void findsNonOverlappingMatchesLeftmostLongest(String text, String expected) {
+        assertEquals(expected, format(AUTOMATON.findAll(text, null)), text);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "早餐和餐饮|0-2:breakfast",
+            "餐和交通卡|2-5:card",
+            "ushers|2-6:hers",
+            "餐饮和早餐|0-2:food",
+    })
+    void findsLongestMatchPreferringLeftmost(String text, String expected) {
+        KeywordAutomaton.Match<String> match = AUTOMATON.findLongest(text, null);
+        assertEquals(expected, match.getStart() + "-" + match.getEnd() + ":" + match.getValue(), text);
+    }
+
+    @Test
+    void skipsFilteredValues() {
+        assertEquals("2-3:meal 3-5:food", format(AUTOMATON.findAll("交通餐餐饮", value -> !value.equals("traffic"))));
+        assertEquals("1-2:meal", format(AUTOMATON.findAll("早餐", value -> value.equals("meal"))));
+        assertNull(AUTOMATON.findLongest("交通卡", value -> value.startsWith("x")));
+    }
+
+    @Test
+    void ignoresEmptyAndNullKeywords() {
+        Map<String, String> keywords = new LinkedHashMap<>();
+        keywords.put("", "empty");
+        keywords.put(null, "null");
+        keywords.put("餐饮", "first");
+        KeywordAutomaton<String> automaton = KeywordAutomaton.build(keywords);
+
+        assertEquals(1, automaton.size());
+        assertEquals("0-2:first", format(automaton.findAll("餐饮", null)));
+    }
+
+    @Test
+    void handlesNullAndEmptyInput() {
+        assertTrue(AUTOMATON.findAll(null, null).isEmpty());
+        assertTrue(AUTOMATON.findAll("", null).isEmpty());
+        assertNull(AUTOMATON.findLongest(null, null));
+        assertTrue(KeywordAutomaton.build(new LinkedHashMap<String, String>()).findAll("餐饮", null).isEmpty());
+    }
+
+    private static String format(List<KeywordAutomaton.Match<String>> matches) {
+        return matches.stream()
+                .map(match -> match.getStart() + "-" + match.getEnd() + ":" + match.getValue())
+                .collect(Collectors.joining(" "));
+    }
+}
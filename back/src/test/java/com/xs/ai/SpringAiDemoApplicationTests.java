@@ -1,8 +1,13 @@
 package cn.nbmly.ai;
 
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
+/**
+ * 启动完整上下文，需要 application.yml 中配置的 MySQL 可用，默认不随 mvn test 运行
+ */
+@Tag("mysql")
 @SpringBootTest
 class SpringAiDemoApplicationTests {
 
@@ -26,17 +26,68 @@ CREATE TABLE `bill`  (
   `user_id` bigint NOT NULL COMMENT '用户ID',
   `category_id` bigint NOT NULL COMMENT '分类ID',
   `amount` decimal(38, 2) NOT NULL,
+  `amount_cents` bigint NOT NULL COMMENT '金额（分）',
   `type` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL,
   `remarks` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NULL DEFAULT NULL,
   `bill_time` datetime NOT NULL COMMENT '账单时间',
   `create_time` datetime NOT NULL COMMENT '创建时间',
   `update_time` datetime NOT NULL COMMENT '更新时间',
+  `deleted_at` datetime NULL DEFAULT NULL COMMENT '软删除时间',
   PRIMARY KEY (`id`) USING BTREE,
-  INDEX `idx_user_id`(`user_id` ASC) USING BTREE,
+  INDEX `idx_bill_deleted_at`(`deleted_at` ASC) USING BTREE,
+  INDEX `idx_user_bill_time`(`user_id` ASC, `bill_time` ASC) USING BTREE,
+  INDEX `idx_user_update_time`(`user_id` ASC, `update_time` ASC) USING BTREE,
+  INDEX `idx_user_type_time_category_cents_deleted`(`user_id` ASC, `type` ASC, `bill_time` ASC, `category_id` ASC, `amount_cents` ASC, `amount` ASC, `deleted_at` ASC) USING BTREE,
   INDEX `idx_category_id`(`category_id` ASC) USING BTREE,
   INDEX `idx_bill_time`(`bill_time` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 29 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '账单表' ROW_FORMAT = DYNAMIC;
 
+-- ----------------------------
+-- Table structure for bill_amount_histogram
+-- ----------------------------
+DROP TABLE IF EXISTS `bill_amount_histogram`;
+CREATE TABLE `bill_amount_histogram`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `bill_day` date NOT NULL COMMENT '账单日期',
+  `category_id` bigint NOT NULL COMMENT '分类ID',
+  `type` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL,
+  `bucket` int NOT NULL COMMENT '金额对数桶号',
+  `bill_count` bigint NOT NULL COMMENT '落入该桶的账单笔数',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_histogram_user_day_category_type_bucket`(`user_id` ASC, `bill_day` ASC, `category_id` ASC, `type` ASC, `bucket` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '账单金额分布草图' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for bill_daily_rollup
+-- ----------------------------
+DROP TABLE IF EXISTS `bill_daily_rollup`;
+CREATE TABLE `bill_daily_rollup`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `bill_day` date NOT NULL COMMENT '账单日期',
+  `category_id` bigint NOT NULL COMMENT '分类ID',
+  `type` varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL,
+  `total_cents` bigint NOT NULL COMMENT '金额合计（分）',
+  `bill_count` bigint NOT NULL COMMENT '账单笔数',
+  `max_amount` decimal(38, 2) NOT NULL COMMENT '单笔最大金额',
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE INDEX `uk_rollup_user_day_category_type`(`user_id` ASC, `bill_day` ASC, `category_id` ASC, `type` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '账单日汇总表' ROW_FORMAT = DYNAMIC;
+
+-- ----------------------------
+-- Table structure for bill_tombstone
+-- ----------------------------
+DROP TABLE IF EXISTS `bill_tombstone`;
+CREATE TABLE `bill_tombstone`  (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `user_id` bigint NOT NULL COMMENT '用户ID',
+  `bill_id` bigint NOT NULL COMMENT '被删除的账单ID',
+  `delete_time` datetime NOT NULL COMMENT '删除时间',
+  PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_tombstone_user_delete_time`(`user_id` ASC, `delete_time` ASC) USING BTREE
+) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '账单删除记录表' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for booking
 -- ----------------------------
@@ -71,7 +122,9 @@ CREATE TABLE `category`  (
   `user_id` bigint NOT NULL COMMENT '所属用户ID',
   `create_time` datetime NOT NULL COMMENT '创建时间',
   `update_time` datetime NOT NULL COMMENT '更新时间',
+  `deleted_at` datetime NULL DEFAULT NULL COMMENT '软删除时间',
   PRIMARY KEY (`id`) USING BTREE,
+  INDEX `idx_category_deleted_at`(`deleted_at` ASC) USING BTREE,
   INDEX `idx_user_id`(`user_id` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 15 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '账单分类表' ROW_FORMAT = DYNAMIC;
 
@@ -105,6 +158,16 @@ CREATE TABLE `flight`  (
   UNIQUE INDEX `UK_aucisqx7arn3fi6eyjmsvqdb3`(`flight_number` ASC) USING BTREE
 ) ENGINE = InnoDB AUTO_INCREMENT = 1 CHARACTER SET = utf8mb4 COLLATE = utf8mb4_0900_ai_ci ROW_FORMAT = Dynamic;
 
+-- ----------------------------
+-- Table structure for schema_migration
+-- ----------------------------
+DROP TABLE IF EXISTS `schema_migration`;
+CREATE TABLE `schema_migration`  (
+  `name` varchar(64) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '一次性数据迁移名称',
+  `applied_at` datetime NOT NULL COMMENT '完成时间',
+  PRIMARY KEY (`name`) USING BTREE
+) ENGINE = InnoDB CHARACTER SET = utf8mb4 COLLATE = utf8mb4_unicode_ci COMMENT = '已完成的数据迁移' ROW_FORMAT = DYNAMIC;
+
 -- ----------------------------
 -- Table structure for user
 -- ----------------------------